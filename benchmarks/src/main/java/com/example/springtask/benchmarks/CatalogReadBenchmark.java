@@ -0,0 +1,69 @@
+package com.example.springtask.benchmarks;
+
+import com.example.springtask.controller.PriceController;
+import com.example.springtask.controller.ProductController;
+import com.example.springtask.dto.PriceView;
+import com.example.springtask.dto.ProductView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class CatalogReadBenchmark {
+    private PriceController priceController;
+    private ProductController productController;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        priceController = catalog.getBean(PriceController.class);
+        productController = catalog.getBean(ProductController.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<PriceView>> pricesByRange() {
+        int from = ThreadLocalRandom.current().nextInt(950);
+        return priceController.getPricesByValue("price_range-" + from + "-" + (from + 50), Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<PriceView>> pricesByCurrency() {
+        String currency = CatalogState.CURRENCIES[ThreadLocalRandom.current().nextInt(CatalogState.CURRENCIES.length)];
+        return priceController.getPricesByValue("currency-" + currency, Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<PriceView>> priceById(CatalogState catalog) {
+        return priceController.getPricesByValue(String.valueOf(catalog.priceId(catalog.randomRow())), Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<PriceView>> pricesByProductName(CatalogState catalog) {
+        return priceController.getPricesByValue(CatalogState.productName(catalog.randomRow()), Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<ProductView>> productById(CatalogState catalog) {
+        return productController.getProductsByValue(String.valueOf(catalog.productId(catalog.randomRow())),
+                Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<ProductView>> productsByCategory(CatalogState catalog) {
+        return productController.getProductsByValue("category_id-" + catalog.categoryId(catalog.randomCategory()),
+                Optional.empty());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<ProductView>> productsByName(CatalogState catalog) {
+        return productController.getProductsByValue(CatalogState.productName(catalog.randomRow()), Optional.empty());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.springtask.benchmarks;
+
+import com.example.springtask.SpringTaskApplication;
+import com.example.springtask.service.CategoryHierarchyService;
+import com.example.springtask.service.ExchangeRateService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the application against a fresh in-memory H2 database and seeds it with {@code rows}
+ * products, one price per product and one category per hundred products. Rows are written
+ * with plain JDBC batches so that seeding a million rows stays in the order of seconds.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+    static final String[] CURRENCIES = {"BYN", "USD", "EUR"};
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private long[] categoryIds;
+    private long[] productIds;
+    private long[] priceIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringTaskApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(CategoryHierarchyService.class).rebuildAll();
+
+        ExchangeRateService exchangeRateService = context.getBean(ExchangeRateService.class);
+        exchangeRateService.setRate("USD", new BigDecimal("3.2"));
+        exchangeRateService.setRate("EUR", new BigDecimal("3.5"));
+        exchangeRateService.renormalizeAll();
+
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, AuthorityUtils.createAuthorityList("USER", "ADMIN")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+
+    public int randomCategory() {
+        return ThreadLocalRandom.current().nextInt(categoryIds.length);
+    }
+
+    public long categoryId(int index) {
+        return categoryIds[index];
+    }
+
+    public long productId(int index) {
+        return productIds[index];
+    }
+
+    public long priceId(int index) {
+        return priceIds[index];
+    }
+
+    public static String categoryName(int index) {
+        return "bench category " + index;
+    }
+
+    public static String productName(int index) {
+        return "bench product " + index;
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        int categories = Math.max(10, rows / 100);
+
+        categoryIds = nextIds(jdbcTemplate, "hibernate_sequence", categories);
+        List<Object[]> categoryRows = new ArrayList<>(categories);
+        List<Object[]> links = new ArrayList<>(categories);
+        for (int i = 0; i < categories; i++) {
+            categoryRows.add(new Object[]{categoryIds[i], categoryName(i)});
+            if (i > 0) {
+                links.add(new Object[]{categoryIds[i], categoryIds[random.nextInt(i)]});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (id, name) VALUES (?, ?)", categoryRows);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO categories_super_categories (category_id, super_category_id) VALUES (?, ?)", links);
+
+        productIds = new long[rows];
+        priceIds = new long[rows];
+        for (int from = 0; from < rows; from += BATCH_SIZE) {
+            int count = Math.min(BATCH_SIZE, rows - from);
+            long[] newProductIds = nextIds(jdbcTemplate, "hibernate_sequence", count);
+            long[] newPriceIds = nextIds(jdbcTemplate, "prices_seq", count);
+
+            List<Object[]> productRows = new ArrayList<>(count);
+            List<Object[]> priceRows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                productIds[from + i] = newProductIds[i];
+                priceIds[from + i] = newPriceIds[i];
+
+                productRows.add(new Object[]{newProductIds[i], productName(from + i),
+                        categoryIds[random.nextInt(categories)]});
+                priceRows.add(new Object[]{newPriceIds[i], newProductIds[i], random.nextInt(1000),
+                        CURRENCIES[random.nextInt(CURRENCIES.length)]});
+            }
+
+            jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category_id) VALUES (?, ?, ?)", productRows);
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO prices (id, product_id, conventional_unit, currency) VALUES (?, ?, ?, ?)", priceRows);
+        }
+    }
+
+    /**
+     * Ids are drawn from the same sequences Hibernate uses, so later inserts through the
+     * repositories never collide with the seeded rows.
+     */
+    private static long[] nextIds(JdbcTemplate jdbcTemplate, String sequence, int count) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)", Long.class, count);
+
+        long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springtask.benchmarks;
+
+import com.example.springtask.controller.CategoryController;
+import com.example.springtask.controller.PriceController;
+import com.example.springtask.domain.store.Category;
+import com.example.springtask.domain.store.Price;
+import com.example.springtask.domain.store.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every invocation writes to the shared dataset: createCategory adds a new leaf category,
+ * createPrice mostly updates the price of an existing product/currency pair through a single upsert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class CatalogWriteBenchmark {
+    private static final String[] CURRENCIES = {"BYN", "USD", "EUR", "RUB"};
+
+    private final AtomicLong counter = new AtomicLong();
+    private CategoryController categoryController;
+    private PriceController priceController;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        categoryController = catalog.getBean(CategoryController.class);
+        priceController = catalog.getBean(PriceController.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<Category> createCategory(CatalogState catalog) {
+        Category category = new Category("bench new category " + counter.incrementAndGet());
+        category.addSuperCategory(new Category(CatalogState.categoryName(catalog.randomCategory())));
+
+        return categoryController.createCategory(category);
+    }
+
+    @Benchmark
+    public ResponseEntity<Price> createPrice(CatalogState catalog) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Price price = new Price(random.nextInt(1000), CURRENCIES[random.nextInt(CURRENCIES.length)]);
+        price.setProduct(new Product(CatalogState.productName(catalog.randomRow())));
+
+        return priceController.createPrice(price);
+    }
+
+    /**
+     * Parallel price feed: the same upsert from several threads, to check that writers do not serialize.
+     */
+    @Benchmark
+    @Threads(8)
+    public ResponseEntity<Price> createPriceConcurrently(CatalogState catalog) {
+        return createPrice(catalog);
+    }
+}
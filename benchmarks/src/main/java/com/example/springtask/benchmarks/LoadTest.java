@@ -0,0 +1,154 @@
+package com.example.springtask.benchmarks;
+
+import com.example.springtask.SpringTaskApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load test. It starts the application once per thread mode, drives it with a
+ * fixed number of clients for a fixed time, and prints throughput and latency percentiles.
+ * <p>
+ * Tuned with system properties: {@code clients} (400), {@code seconds} (30), {@code warmup} (10),
+ * {@code path} ({@code /price?size=20}) and {@code modes} ({@code platform,virtual}). The data set is
+ * sized with the application's {@code store.seed.*} properties, passed as system properties too.
+ */
+public class LoadTest {
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:user".getBytes(StandardCharsets.UTF_8));
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("clients", 400);
+        int seconds = Integer.getInteger("seconds", 30);
+        int warmup = Integer.getInteger("warmup", 10);
+        String path = System.getProperty("path", "/price?size=20");
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "mode", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+        for (String mode : System.getProperty("modes", "platform,virtual").split(",")) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringTaskApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "logging.level.root=WARN",
+                            "store.threads.mode=" + mode)
+                    .run();
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URL url = new URL("http://localhost:" + port + path);
+
+                run(url, clients, warmup);
+                Result result = run(url, clients, seconds);
+                System.out.printf("%-10s %10.0f %10d %10.2f %10.2f %10.2f %10.2f%n",
+                        mode, result.count / (double) seconds, result.errors,
+                        result.percentile(0.50), result.percentile(0.95), result.percentile(0.99),
+                        result.percentile(1.0));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Result run(URL url, int clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Client> workers = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(url, deadline);
+            client.start();
+            workers.add(client);
+        }
+
+        Result result = new Result();
+        for (Client client : workers) {
+            client.join();
+            result.add(client);
+        }
+
+        return result;
+    }
+
+    private static class Client extends Thread {
+        private final URL url;
+        private final long deadline;
+        private final byte[] buffer = new byte[8192];
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Client(URL url, long deadline) {
+            this.url = url;
+            this.deadline = deadline;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                if (request()) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                } else {
+                    errors++;
+                }
+            }
+        }
+
+        private boolean request() {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setRequestProperty("Authorization", AUTHORIZATION);
+                int status = connection.getResponseCode();
+                InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                if (body != null) {
+                    try (InputStream in = body) {
+                        while (in.read(buffer) >= 0) {
+                            // drain so the connection can be reused
+                        }
+                    }
+                }
+
+                return status == 200;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private static class Result {
+        private long[] latencies = new long[0];
+        private long count;
+        private long errors;
+
+        private void add(Client client) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + client.count);
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            count += client.count;
+            errors += client.errors;
+        }
+
+        private double percentile(double fraction) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+
+            Arrays.sort(latencies);
+            int index = (int) Math.ceil(fraction * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springtask.benchmarks;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the log line a request handler writes, through the application's logback
+ * configuration. FILE is the synchronous appender flushing every event, ASYNC hands events
+ * to the bounded queue in front of the buffered file appender.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingBenchmark.class);
+
+    @Param({"FILE", "ASYNC"})
+    public String appender;
+
+    private File logFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JoranException {
+        logFile = File.createTempFile("store-benchmark", ".log");
+
+        System.setProperty("STORE_LOG_FILE", logFile.getAbsolutePath());
+        System.setProperty("STORE_LOG_APPENDER", appender);
+        System.setProperty("STORE_LOG_IMMEDIATE_FLUSH", String.valueOf("FILE".equals(appender)));
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(LoggingBenchmark.class.getResource("/logback-test.xml"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        logFile.delete();
+    }
+
+    @Benchmark
+    public void preformatted() {
+        LOGGER.info(String.format("RECEIVED PRODUCT WITH ID  = %s", ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    public void parameterized() {
+        LOGGER.info("RECEIVED PRODUCT WITH ID  = {}", ThreadLocalRandom.current().nextInt());
+    }
+}
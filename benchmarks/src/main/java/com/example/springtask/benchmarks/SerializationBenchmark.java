@@ -0,0 +1,85 @@
+package com.example.springtask.benchmarks;
+
+import com.example.springtask.dto.CategoryView;
+import com.example.springtask.dto.PriceView;
+import com.example.springtask.dto.ProductView;
+import com.example.springtask.service.CatalogQueryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of a response page of views, measured with the application's own mappers for each
+ * negotiated format. Categories are taken from the end of the id range, where the super category
+ * chains are longest. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class SerializationBenchmark {
+    @Param({"10", "100"})
+    public int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private List<CategoryView> categories;
+    private List<ProductView> products;
+    private List<PriceView> prices;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) throws JsonProcessingException {
+        objectMapper = mapper(catalog);
+        CatalogQueryService catalogQueryService = catalog.getBean(CatalogQueryService.class);
+
+        categories = catalogQueryService
+                .findCategories(PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "id")))
+                .getContent();
+        products = catalogQueryService
+                .findProducts(PageRequest.of(0, pageSize, Sort.by("id")))
+                .getContent();
+        prices = catalogQueryService
+                .findPrices(PageRequest.of(0, pageSize, Sort.by("id")))
+                .getContent();
+
+        System.out.printf("%s payload bytes for %d rows: categories=%d, products=%d, prices=%d%n",
+                format, pageSize, categories().length, products().length, prices().length);
+    }
+
+    private ObjectMapper mapper(CatalogState catalog) {
+        switch (format) {
+            case "cbor":
+                return catalog.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            case "smile":
+                return catalog.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            default:
+                return catalog.getBean(ObjectMapper.class);
+        }
+    }
+
+    @Benchmark
+    public byte[] categories() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(categories);
+    }
+
+    @Benchmark
+    public byte[] products() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] prices() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(prices);
+    }
+}
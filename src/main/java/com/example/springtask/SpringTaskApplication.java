@@ -27,6 +27,10 @@ public class SpringTaskApplication {
     @Bean
     public CommandLineRunner createAdmin() {
         return (args) -> {
+            if (userRepository.findByUsername("admin") != null) {
+                return;
+            }
+
             User admin = new User();
             admin.setUsername("admin");
             admin.setPassword("admin");
@@ -44,6 +48,10 @@ public class SpringTaskApplication {
     @Bean
     public CommandLineRunner createUser() {
         return (args) -> {
+            if (userRepository.findByUsername("user") != null) {
+                return;
+            }
+
             User user = new User();
             user.setUsername("user");
             user.setPassword("user");
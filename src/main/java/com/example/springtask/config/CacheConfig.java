@@ -0,0 +1,40 @@
+package com.example.springtask.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_PAGES = "categoryPages";
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_PAGES = "productPages";
+    public static final String PRICES = "prices";
+    public static final String PRICE_PAGES = "pricePages";
+    public static final String USERS = "users";
+
+    /**
+     * {@code unless} condition for catalog reads routed to a replica that may lag behind a recent write.
+     */
+    public static final String STALE_READ = "T(com.example.springtask.config.ReplicaRoutingDataSource).isStaleRead()";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> usersCacheCustomizer(
+            @Value("${store.cache.users.spec}") String spec) {
+        return cacheManager -> cacheManager.registerCustomCache(USERS, Caffeine.from(spec).build());
+    }
+
+    @Bean
+    public UserCache userCache(CacheManager cacheManager) {
+        return new SpringCacheBasedUserCache(cacheManager.getCache(USERS));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.springtask.config;
+
+import com.example.springtask.controller.CategoryController;
+import com.example.springtask.controller.PriceController;
+import com.example.springtask.controller.ProductController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Stamps every successful catalog write with the {@link ReplicaRoutingInterceptor#LAST_WRITE_COOKIE}
+ * cookie carrying the write time. The body is written, and the response committed, before any interceptor
+ * callback runs after the handler, so the cookie is added here, right before the body.
+ */
+@ControllerAdvice(assignableTypes = {CategoryController.class, ProductController.class, PriceController.class})
+@ConditionalOnProperty(name = "store.replica.enabled", havingValue = "true")
+public class LastWriteCookieAdvice implements ResponseBodyAdvice<Object> {
+    private final boolean enabled;
+    private final int maxAgeSeconds;
+
+    public LastWriteCookieAdvice(@Value("${store.replica.lag-policy}") String lagPolicy,
+                                 @Value("${store.replica.max-lag-ms}") long maxLagMillis) {
+        this.enabled = ReplicaRoutingInterceptor.LagPolicy.parse(lagPolicy)
+                == ReplicaRoutingInterceptor.LagPolicy.PRIMARY_AFTER_WRITE;
+        this.maxAgeSeconds = (int) Math.max(1, (maxLagMillis + 999) / 1000);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest) || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+
+        String method = ((ServletServerHttpRequest) request).getServletRequest().getMethod();
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        if (!ReplicaRoutingInterceptor.isSafe(method) && servletResponse.getStatus() < 400) {
+            Cookie cookie = new Cookie(ReplicaRoutingInterceptor.LAST_WRITE_COOKIE,
+                    String.valueOf(System.currentTimeMillis()));
+            cookie.setPath("/");
+            cookie.setMaxAge(maxAgeSeconds);
+            cookie.setHttpOnly(true);
+            servletResponse.addCookie(cookie);
+        }
+        return body;
+    }
+}
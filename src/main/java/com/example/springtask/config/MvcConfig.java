@@ -1,13 +1,25 @@
 package com.example.springtask.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class MvcConfig implements WebMvcConfigurer {
+    private final SqlStatementMetricsInterceptor sqlStatementMetricsInterceptor;
+
+    public MvcConfig(SqlStatementMetricsInterceptor sqlStatementMetricsInterceptor) {
+        this.sqlStatementMetricsInterceptor = sqlStatementMetricsInterceptor;
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/login").setViewName("login");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementMetricsInterceptor);
+    }
 }
@@ -0,0 +1,68 @@
+package com.example.springtask.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * store.replica.enabled=true splits reads from writes. The primary pool is still configured with
+ * {@code spring.datasource.*}; every url in {@code store.replica.urls} gets its own read-only pool
+ * with the primary's settings and {@code store.replica.pool-size} connections. Adding a url adds
+ * read capacity.
+ */
+@Configuration
+@ConditionalOnProperty(name = "store.replica.enabled", havingValue = "true")
+public class ReplicaConfig implements WebMvcConfigurer {
+    private final String lagPolicy;
+    private final long maxLagMillis;
+
+    public ReplicaConfig(@Value("${store.replica.lag-policy}") String lagPolicy,
+                         @Value("${store.replica.max-lag-ms}") long maxLagMillis) {
+        this.lagPolicy = lagPolicy;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               @Value("${store.replica.urls}") String[] urls,
+                                               @Value("${store.replica.pool-size}") int poolSize,
+                                               MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.length);
+        for (int i = 0; i < urls.length; i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(urls[i].trim());
+            config.setMaximumPoolSize(poolSize);
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReplicaRoutingInterceptor(
+                ReplicaRoutingInterceptor.LagPolicy.parse(lagPolicy), maxLagMillis));
+    }
+}
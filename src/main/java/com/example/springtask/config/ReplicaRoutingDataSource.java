@@ -0,0 +1,91 @@
+package com.example.springtask.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from the primary pool unless the current thread was marked as a read,
+ * in which case the replicas take turns. The mark is set per request by
+ * {@link ReplicaRoutingInterceptor}; anything running outside a request, such as startup, schema
+ * validation or background jobs, stays on the primary. A read that may see a replica still behind
+ * a recent write is also marked stale, and the catalog caches do not keep its results.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final ThreadLocal<Boolean> READ = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> STALE = new ThreadLocal<>();
+
+    private final List<HikariDataSource> replicas;
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            keys.add(key);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (String key : keys) {
+            counters.put(key, counter(meterRegistry, key));
+        }
+        counters.put("primary", counter(meterRegistry, "primary"));
+    }
+
+    public static void routeToReplica(boolean stale) {
+        READ.set(Boolean.TRUE);
+        if (stale) {
+            STALE.set(Boolean.TRUE);
+        }
+    }
+
+    public static void clearRoute() {
+        READ.remove();
+        STALE.remove();
+    }
+
+    public static boolean isStaleRead() {
+        return STALE.get() != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (READ.get() == null || keys.isEmpty()) {
+            counters.get("primary").increment();
+            return null;
+        }
+
+        String key = keys.get(Math.floorMod(next.getAndIncrement(), keys.size()));
+        counters.get(key).increment();
+        return key;
+    }
+
+    @Override
+    public void close() {
+        for (HikariDataSource replica : replicas) {
+            replica.close();
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("store.datasource.routes")
+                .description("Connections handed out per target pool")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.springtask.config;
+
+import com.example.springtask.controller.CategoryController;
+import com.example.springtask.controller.PriceController;
+import com.example.springtask.controller.ProductController;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the {@code @GetMapping} handlers of the catalog controllers to the replicas. With open
+ * session in view the connection is taken on the first query and held until the request ends, so
+ * the whole request reads from one pool.
+ * <p>
+ * {@link LagPolicy#PRIMARY_AFTER_WRITE} keeps a client's reads on the primary for {@code max-lag-ms}
+ * after its own last catalog write, which {@link LastWriteCookieAdvice} stamps on every successful
+ * write response, so a client reading right after its write does not see a replica that has not
+ * caught up yet. Other clients keep reading from the replicas, but within {@code max-lag-ms} of any
+ * catalog write on this node their results are not cached, so a lagging replica cannot put an old
+ * row back into a cache the write has just evicted. {@link LagPolicy#IGNORE} always reads from the
+ * replicas.
+ */
+public class ReplicaRoutingInterceptor implements AsyncHandlerInterceptor {
+    public static final String LAST_WRITE_COOKIE = "last-write";
+
+    private static final Set<Class<?>> CATALOG_CONTROLLERS = new HashSet<>(Arrays.asList(
+            CategoryController.class, ProductController.class, PriceController.class));
+
+    private final LagPolicy lagPolicy;
+    private final long maxLagMillis;
+    private final long maxLagNanos;
+    private volatile long lastWrite = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public ReplicaRoutingInterceptor(LagPolicy lagPolicy, long maxLagMillis) {
+        this.lagPolicy = lagPolicy;
+        this.maxLagMillis = maxLagMillis;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isCatalog(handler)) {
+            return true;
+        }
+
+        if (isRead(handler)) {
+            if (!clientWithinLag(request)) {
+                ReplicaRoutingDataSource.routeToReplica(nodeWithinLag());
+            }
+        } else if (!isSafe(request.getMethod())) {
+            // the write may commit before afterCompletion runs, so reads are kept out of the caches from the start
+            lastWrite = System.nanoTime();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReplicaRoutingDataSource.clearRoute();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReplicaRoutingDataSource.clearRoute();
+        if (isCatalog(handler) && !isRead(handler) && !isSafe(request.getMethod())
+                && ex == null && response.getStatus() < 400) {
+            lastWrite = System.nanoTime();
+        }
+    }
+
+    private boolean clientWithinLag(HttpServletRequest request) {
+        if (lagPolicy != LagPolicy.PRIMARY_AFTER_WRITE) {
+            return false;
+        }
+
+        Cookie cookie = WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+        if (cookie == null) {
+            return false;
+        }
+
+        try {
+            return Math.abs(System.currentTimeMillis() - Long.parseLong(cookie.getValue())) < maxLagMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean nodeWithinLag() {
+        return lagPolicy == LagPolicy.PRIMARY_AFTER_WRITE && System.nanoTime() - lastWrite < maxLagNanos;
+    }
+
+    private static boolean isCatalog(Object handler) {
+        return handler instanceof HandlerMethod
+                && CATALOG_CONTROLLERS.contains(((HandlerMethod) handler).getBeanType());
+    }
+
+    private static boolean isRead(Object handler) {
+        return AnnotatedElementUtils.hasAnnotation(((HandlerMethod) handler).getMethod(), GetMapping.class);
+    }
+
+    static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    public enum LagPolicy {
+        IGNORE,
+        PRIMARY_AFTER_WRITE;
+
+        public static LagPolicy parse(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown replica lag policy " + value);
+            }
+        }
+    }
+}
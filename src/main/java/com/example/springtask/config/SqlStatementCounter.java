@@ -0,0 +1,36 @@
+package com.example.springtask.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start()}
+ * and {@link #stop()}. Threads that never called start are not counted.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+    private final ThreadLocal<AtomicLong> statements = new ThreadLocal<>();
+
+    public void start() {
+        statements.set(new AtomicLong());
+    }
+
+    public long stop() {
+        AtomicLong count = statements.get();
+        statements.remove();
+
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicLong count = statements.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+
+        return sql;
+    }
+}
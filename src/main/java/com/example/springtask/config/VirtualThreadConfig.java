@@ -0,0 +1,62 @@
+package com.example.springtask.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * store.threads.mode=virtual runs every request on its own virtual thread instead of Tomcat's
+ * worker pool. The code is compiled for Java 8, so the executor is looked up reflectively. On a
+ * JDK without virtual threads the mode falls back to the platform pool.
+ * <p>
+ * Without the pool there is no cap on concurrent requests. The concurrency limit filter takes
+ * its place. It is sized to the connection pool by default, because with open session in view
+ * a request holds its connection until it completes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "store.threads.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutorCustomizer() {
+        return protocolHandler -> {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+                LOGGER.info("SERVING REQUESTS ON VIRTUAL THREADS");
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${store.threads.max-concurrency}") int maxConcurrency,
+            @Value("${store.threads.acquire-timeout-ms}") long acquireTimeoutMillis) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrency, acquireTimeoutMillis));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return registration;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("VIRTUAL THREADS ARE NOT AVAILABLE ON JAVA {}, USING THE PLATFORM THREAD POOL",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
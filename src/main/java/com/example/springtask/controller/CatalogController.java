@@ -0,0 +1,45 @@
+package com.example.springtask.controller;
+
+import com.example.springtask.service.CatalogExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/catalog")
+public class CatalogController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogController.class);
+    private final CatalogExportService catalogExportService;
+
+    public CatalogController(CatalogExportService catalogExportService) {
+        this.catalogExportService = catalogExportService;
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam Optional<String> format) {
+        CatalogExportService.Format exportFormat = "csv".equalsIgnoreCase(format.orElse("ndjson"))
+                ? CatalogExportService.Format.CSV
+                : CatalogExportService.Format.NDJSON;
+
+        StreamingResponseBody body = outputStream -> {
+            catalogExportService.export(outputStream, exportFormat);
+            LOGGER.info("EXPORTED CATALOG AS {}", exportFormat);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat == CatalogExportService.Format.CSV
+                        ? MediaType.valueOf("text/csv")
+                        : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -1,7 +1,21 @@
 package com.example.springtask.controller;
 
 import com.example.springtask.domain.store.Category;
+import com.example.springtask.dto.CategoryDeletionResult;
+import com.example.springtask.dto.CategoryView;
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.dto.NameSuggestion;
+import com.example.springtask.dto.ProductView;
+import com.example.springtask.exceptions.NotFoundException;
 import com.example.springtask.repos.CategoryRepository;
+import com.example.springtask.service.CatalogQueryService;
+import com.example.springtask.service.CategoryDeletionService;
+import com.example.springtask.service.CategoryDeletionService.ProductPolicy;
+import com.example.springtask.service.CategoryHierarchyService;
+import com.example.springtask.service.KeysetPaginationService;
+import com.example.springtask.service.NameSuggestService;
+import com.example.springtask.utils.ETags;
+import com.example.springtask.utils.Paging;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
@@ -14,56 +28,125 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/category")
 public class CategoryController {
     private static final Logger LOGGER = LoggerFactory.getLogger(CategoryController.class);
     private final CategoryRepository categoryRepository;
+    private final CategoryHierarchyService categoryHierarchyService;
+    private final KeysetPaginationService keysetPaginationService;
+    private final CatalogQueryService catalogQueryService;
+    private final NameSuggestService nameSuggestService;
+    private final CategoryDeletionService categoryDeletionService;
 
-    public CategoryController(CategoryRepository categoryRepository) {
+    public CategoryController(CategoryRepository categoryRepository,
+                              CategoryHierarchyService categoryHierarchyService,
+                              KeysetPaginationService keysetPaginationService,
+                              CatalogQueryService catalogQueryService,
+                              NameSuggestService nameSuggestService,
+                              CategoryDeletionService categoryDeletionService) {
         this.categoryRepository = categoryRepository;
+        this.categoryHierarchyService = categoryHierarchyService;
+        this.keysetPaginationService = keysetPaginationService;
+        this.catalogQueryService = catalogQueryService;
+        this.nameSuggestService = nameSuggestService;
+        this.categoryDeletionService = categoryDeletionService;
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<Page<Category>> categories(
+    public ResponseEntity<Page<CategoryView>> categories(
             @RequestParam Optional<Integer> page,
-            @RequestParam Optional<String> sortBy
+            @RequestParam Optional<String> sortBy,
+            @RequestParam Optional<Integer> size
     ) {
-        Page<Category> categories = categoryRepository.findAll(
+        Page<CategoryView> categories = catalogQueryService.findCategories(
                 PageRequest.of(page.orElse(0),
-                        10,
+                        Paging.pageSize(size),
                         Sort.Direction.ASC, sortBy.orElse("id")));
 
         LOGGER.info("RECEIVED ALL CATEGORIES");
-        return ResponseEntity.ok().body(categories);
+        return new ETags().page(categories).ok(categories);
+    }
+
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CursorPage<CategoryView>> categoriesAfter(
+            @RequestParam String after,
+            @RequestParam Optional<Integer> limit,
+            @RequestParam Optional<String> sortBy) {
+        CursorPage<CategoryView> categories = catalogQueryService.toCategoryViews(keysetPaginationService.findPage(
+                Category.class,
+                sortBy.orElse("id"),
+                after,
+                Paging.pageSize(limit)));
+
+        LOGGER.info("RECEIVED CATEGORIES AFTER CURSOR");
+        return new ETags().cursor(categories).ok(categories);
+    }
+
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<NameSuggestion>> suggestCategories(
+            @RequestParam String q,
+            @RequestParam Optional<Integer> limit) {
+        List<NameSuggestion> suggestions = nameSuggestService.suggestCategories(q, Paging.pageSize(limit));
+
+        LOGGER.debug("SUGGESTED {} CATEGORIES FOR {}", suggestions.size(), q);
+        return ResponseEntity.ok().body(suggestions);
     }
 
     @GetMapping("/{value}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<List<Category>> getCategoriesByValue(@PathVariable("value") String value) {
-        List<Category> categories = new ArrayList<>();
+    public ResponseEntity<List<CategoryView>> getCategoriesByValue(@PathVariable("value") String value) {
+        List<CategoryView> categories = new ArrayList<>();
+        ETags tags = new ETags();
         if (value != null) {
             if (value.matches("[+]?\\d+")) {
-                Category category = categoryRepository.getById(Long.parseLong(value));
-                Category categoryForReturn = new Category();
-                categoryForReturn.setId(category.getId());
-                categoryForReturn.setName(category.getName());
-                categories.add(categoryForReturn);
+                CategoryView category = catalogQueryService.findCategory(Long.parseLong(value))
+                        .orElseThrow(NotFoundException::new);
+                categories.add(new CategoryView(category.getId(), category.getName(),
+                        category.getVersion(), category.getLastModified()));
 
-                LOGGER.info(String.format("RECEIVED CATEGORY WITH ID = %s", value));
+                tags.withLastModified();
+
+                LOGGER.info("RECEIVED CATEGORY WITH ID = {}", value);
             } else {
-                categories = categoryRepository.findAll()
-                        .stream()
-                        .filter(category -> category.getName().equals(value))
-                        .collect(Collectors.toList());
+                categories = catalogQueryService.findCategoriesByName(value);
 
-                LOGGER.info(String.format("RECEIVED CATEGORY WITH NAME = %s", value));
+                LOGGER.info("RECEIVED CATEGORY WITH NAME = {}", value);
             }
         }
-        return ResponseEntity.ok().body(categories);
+        return tags.views(categories).ok(categories);
+    }
+
+    @GetMapping("/{id}/descendants")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<CategoryView>> getDescendants(
+            @PathVariable("id") Long id,
+            @RequestParam Optional<Integer> page) {
+        List<CategoryView> categories = catalogQueryService.findDescendants(
+                id,
+                PageRequest.of(page.orElse(0), 10, Sort.by("id")));
+
+        LOGGER.info("RECEIVED DESCENDANTS OF CATEGORY WITH ID = {}", id);
+        return new ETags().views(categories).ok(categories);
+    }
+
+    @GetMapping("/{id}/products")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<ProductView>> getProducts(
+            @PathVariable("id") Long id,
+            @RequestParam Optional<Boolean> deep,
+            @RequestParam Optional<Integer> page) {
+        List<ProductView> products = catalogQueryService.findProductsByCategory(
+                id,
+                deep.orElse(false),
+                PageRequest.of(page.orElse(0), 10, Sort.by("id")));
+
+        LOGGER.info("RECEIVED PRODUCTS OF CATEGORY WITH ID = {}", id);
+        return new ETags().views(products).ok(products);
     }
 
     @PostMapping
@@ -71,23 +154,21 @@ public class CategoryController {
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
         if (!category.getSuperCategories().isEmpty()) {
             Category superCategory = getSuperCategoryOfCategory(category);
-            List<Category> categoriesFromDb = categoryRepository.findAll();
+            Optional<Category> superCategoryFromDb = categoryRepository.findFirstByName(superCategory.getName());
 
-            for (Category c : categoriesFromDb) {
-                if (c.equals(superCategory)){
-                    category.getSuperCategories().remove(getSuperCategoryOfCategory(category));
-                    category.getSuperCategories().add(c);
-                }
+            if (superCategoryFromDb.isPresent()) {
+                category.getSuperCategories().remove(superCategory);
+                category.getSuperCategories().add(superCategoryFromDb.get());
             }
 
-            categoryRepository.save(getSuperCategoryOfCategory(category));
+            Category savedSuperCategory = categoryRepository.save(getSuperCategoryOfCategory(category));
+            nameSuggestService.categorySaved(savedSuperCategory.getId(), savedSuperCategory.getName());
+            if (!superCategoryFromDb.isPresent()) {
+                categoryHierarchyService.rebuild(savedSuperCategory.getId());
+            }
         }
 
-        Category categoryForCreate = categoryRepository.findAll()
-                .stream()
-                .filter(c -> c.equals(category))
-                .findFirst()
-                .orElse(null);
+        Category categoryForCreate = categoryRepository.findFirstByName(category.getName()).orElse(null);
 
         if (categoryForCreate != null) {
             category.setName(categoryForCreate.getName());
@@ -102,9 +183,11 @@ public class CategoryController {
             updateCategory(categoryForCreate, category);
         } else {
             categoryForCreate = categoryRepository.save(category);
+            nameSuggestService.categorySaved(categoryForCreate.getId(), categoryForCreate.getName());
+            categoryHierarchyService.rebuild(categoryForCreate.getId());
         }
 
-        LOGGER.info(String.format("ADDED NEW CATEGORY"));
+        LOGGER.info("ADDED NEW CATEGORY");
         return ResponseEntity.status(201).body(categoryForCreate);
     }
 
@@ -113,41 +196,43 @@ public class CategoryController {
     public ResponseEntity<Category> updateCategory(
             @PathVariable("id") Category categoryFromDb,
             @RequestBody Category category) {
-        List<Category> categoriesFromDb = categoryRepository.findAll();
-
-        for (Category c : categoriesFromDb) {
-            if (c.equals(category)) {
-                category.setName(categoryFromDb.getName());
-            }
+        if (categoryRepository.findFirstByName(category.getName()).isPresent()) {
+            category.setName(categoryFromDb.getName());
         }
 
         BeanUtils.copyProperties(category, categoryFromDb, "id");
+        Category updatedCategory = categoryRepository.save(categoryFromDb);
+        categoryHierarchyService.rebuild(updatedCategory.getId());
+        nameSuggestService.categorySaved(updatedCategory.getId(), updatedCategory.getName());
 
-        LOGGER.info(String.format("UPDATED CATEGORY WITH ID  = %d", categoryFromDb.getId()));
-        return ResponseEntity.ok().body(categoryRepository.save(categoryFromDb));
+        LOGGER.info("UPDATED CATEGORY WITH ID  = {}", categoryFromDb.getId());
+        return ResponseEntity.ok().body(updatedCategory);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Category> deleteCategory(@PathVariable("id") Long id) {
-        Optional<Category> categoryFromDb = categoryRepository.findById(id);
-        List<Category> categoriesFromDb = categoryRepository.findAll();
-        Category category = categoryFromDb.orElseThrow(() -> new EntityNotFoundException("id-" + id));
-
-        for (Category c : categoriesFromDb) {
-            if (!c.getSuperCategories().isEmpty()) {
-                if (getSuperCategoryOfCategory(c).equals(category)) {
-                    c.getSuperCategories().remove(getSuperCategoryOfCategory(c));
-                }
-            }
-        }
+    public ResponseEntity<Category> deleteCategory(
+            @PathVariable("id") Long id,
+            @RequestParam Optional<String> products) {
+        Category category = categoryRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("id-" + id));
+        categoryDeletionService.delete(Collections.singletonList(id), ProductPolicy.parse(products.orElse("reassign")));
 
-        categoryRepository.deleteById(id);
-
-        LOGGER.info(String.format("DELETED CATEGORY WITH ID  = %d", id));
+        LOGGER.info("DELETED CATEGORY WITH ID  = {}", id);
         return ResponseEntity.ok().body(category);
     }
 
+    @DeleteMapping(params = "ids")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<CategoryDeletionResult> deleteCategories(
+            @RequestParam List<Long> ids,
+            @RequestParam Optional<String> products) {
+        CategoryDeletionResult result = categoryDeletionService.delete(
+                ids, ProductPolicy.parse(products.orElse("reassign")));
+
+        LOGGER.info("DELETED {} CATEGORIES", result.getCategoriesDeleted());
+        return ResponseEntity.ok().body(result);
+    }
+
     private static <T> HashSet<T> joinLists(final Set<T> listA, final Set<T> listB) {
         boolean aEmpty = (listA == null) || listA.isEmpty();
         boolean bEmpty = (listB == null) || listB.isEmpty();
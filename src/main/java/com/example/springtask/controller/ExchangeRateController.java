@@ -0,0 +1,47 @@
+package com.example.springtask.controller;
+
+import com.example.springtask.domain.store.ExchangeRate;
+import com.example.springtask.service.ExchangeRateService;
+import com.example.springtask.utils.FxRates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/fx")
+public class ExchangeRateController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRateController.class);
+    private final ExchangeRateService exchangeRateService;
+
+    public ExchangeRateController(ExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<FxRates> getRates() {
+        return ResponseEntity.ok().body(exchangeRateService.getRates());
+    }
+
+    @PutMapping("/{currency}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<FxRates> setRate(
+            @PathVariable("currency") String currency,
+            @RequestBody ExchangeRate exchangeRate) {
+        FxRates rates = exchangeRateService.setRate(currency, exchangeRate.getRate());
+
+        LOGGER.info("UPDATED EXCHANGE RATE {} = {}", currency, rates.getRate(currency));
+        return ResponseEntity.ok().body(rates);
+    }
+
+    @DeleteMapping("/{currency}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<FxRates> removeRate(@PathVariable("currency") String currency) {
+        FxRates rates = exchangeRateService.removeRate(currency);
+
+        LOGGER.info("REMOVED EXCHANGE RATE {}", currency);
+        return ResponseEntity.ok().body(rates);
+    }
+}
@@ -2,26 +2,48 @@ package com.example.springtask.controller;
 
 import com.example.springtask.domain.store.Price;
 import com.example.springtask.domain.store.Product;
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.dto.PriceChangeEvent;
+import com.example.springtask.dto.PriceHistoryBucket;
+import com.example.springtask.dto.PriceImportResult;
+import com.example.springtask.dto.PriceView;
+import com.example.springtask.exceptions.BadRequestException;
 import com.example.springtask.exceptions.NotFoundException;
 import com.example.springtask.repos.PriceRepository;
 import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CatalogQueryService;
+import com.example.springtask.service.KeysetPaginationService;
+import com.example.springtask.service.PriceHistoryService;
+import com.example.springtask.service.PriceImportService;
+import com.example.springtask.service.PriceStreamService;
+import com.example.springtask.service.PriceUpsertService;
+import com.example.springtask.utils.ETags;
+import com.example.springtask.utils.Paging;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/price")
@@ -29,126 +51,203 @@ public class PriceController {
     private static final Logger LOGGER = LoggerFactory.getLogger(PriceController.class);
     private final PriceRepository priceRepository;
     private final ProductRepository productRepository;
+    private final PriceImportService priceImportService;
+    private final KeysetPaginationService keysetPaginationService;
+    private final CatalogQueryService catalogQueryService;
+    private final PriceUpsertService priceUpsertService;
+    private final PriceStreamService priceStreamService;
+    private final PriceHistoryService priceHistoryService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PriceController(PriceRepository priceRepository, ProductRepository productRepository) {
+    public PriceController(PriceRepository priceRepository,
+                           ProductRepository productRepository,
+                           PriceImportService priceImportService,
+                           KeysetPaginationService keysetPaginationService,
+                           CatalogQueryService catalogQueryService,
+                           PriceUpsertService priceUpsertService,
+                           PriceStreamService priceStreamService,
+                           PriceHistoryService priceHistoryService,
+                           ApplicationEventPublisher eventPublisher) {
         this.priceRepository = priceRepository;
         this.productRepository = productRepository;
+        this.priceImportService = priceImportService;
+        this.keysetPaginationService = keysetPaginationService;
+        this.catalogQueryService = catalogQueryService;
+        this.priceUpsertService = priceUpsertService;
+        this.priceStreamService = priceStreamService;
+        this.priceHistoryService = priceHistoryService;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<Page<Price>> getPrices(
+    public ResponseEntity<Page<PriceView>> getPrices(
             @RequestParam Optional<Integer> page,
-            @RequestParam Optional<String> sortBy) {
-        Page<Price> prices = priceRepository.findAll(
+            @RequestParam Optional<String> sortBy,
+            @RequestParam Optional<Integer> size) {
+        Page<PriceView> prices = catalogQueryService.findPrices(
                 PageRequest.of(page.orElse(0),
-                        10,
+                        Paging.pageSize(size),
                         Sort.Direction.ASC, sortBy.orElse("id")));
 
         LOGGER.info("RECEIVED ALL PRICES");
-        return ResponseEntity.ok().body(prices);
+        return new ETags().page(prices).ok(prices);
+    }
+
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CursorPage<PriceView>> pricesAfter(
+            @RequestParam String after,
+            @RequestParam Optional<Integer> limit,
+            @RequestParam Optional<String> sortBy) {
+        CursorPage<PriceView> prices = catalogQueryService.toPriceViews(keysetPaginationService.findPage(
+                Price.class,
+                sortBy.orElse("id"),
+                after,
+                Paging.pageSize(limit),
+                "Price.product"));
+
+        LOGGER.info("RECEIVED PRICES AFTER CURSOR");
+        return new ETags().cursor(prices).ok(prices);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('USER')")
+    public void streamPrices(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        priceStreamService.subscribe(request, response);
+
+        LOGGER.info("SUBSCRIBED TO PRICE STREAM, {} SUBSCRIBERS", priceStreamService.getSubscriberCount());
+    }
+
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<PriceHistoryBucket>> getPriceHistory(
+            @PathVariable("id") Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<Instant> from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<Instant> to,
+            @RequestParam Optional<String> bucket) {
+        Instant end = to.orElseGet(Instant::now);
+        List<PriceHistoryBucket> history = priceHistoryService.findHistory(
+                id,
+                from.orElse(end.minus(30, ChronoUnit.DAYS)),
+                end,
+                PriceHistoryService.Bucket.parse(bucket.orElse("day")));
+
+        LOGGER.info("RECEIVED HISTORY OF PRICE WITH ID = {}", id);
+        return ResponseEntity.ok().body(history);
     }
 
     @GetMapping("/{value}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<List<Price>> getPricesByValue(@PathVariable("value") String value) {
+    public ResponseEntity<List<PriceView>> getPricesByValue(
+            @PathVariable("value") String value,
+            @RequestParam Optional<Integer> page) {
         Pattern priceRangePattern = Pattern.compile("price_range-");
         Matcher priceRangeMatcher = priceRangePattern.matcher(value);
 
+        Pattern normalizedRangePattern = Pattern.compile("normalized_range-");
+        Matcher normalizedRangeMatcher = normalizedRangePattern.matcher(value);
+
         Pattern priceCurrencyPattern = Pattern.compile("currency-");
         Matcher priceCurrencyMatcher = priceCurrencyPattern.matcher(value);
-        List<Price> prices = new ArrayList<>();
-        if (priceRangeMatcher.find()) {
+        List<PriceView> prices = new ArrayList<>();
+        ETags tags = new ETags();
+        if (normalizedRangeMatcher.find()) {
+            BigDecimal min = parseAmount(value.split("-")[1]);
+            BigDecimal max = parseAmount(value.split("-")[2]);
+
+            prices = catalogQueryService.findPricesInNormalizedRange(
+                    min,
+                    max,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("normalizedAmount", "id")));
+
+            LOGGER.info("RECEIVED ALL PRICES WITH NORMALIZED PRICE {} - {}", min, max);
+        } else if (priceRangeMatcher.find()) {
             int minPrice = Integer.parseInt(value.split("-")[1]);
             int maxPrice = Integer.parseInt(value.split("-")[2]);
 
-            List<Price> pricesFromDb = priceRepository.findAll();
-            for (Price price : pricesFromDb) {
-                if (price.getConventionalUnit() > minPrice && price.getConventionalUnit() < maxPrice) {
-                    prices.add(price);
-                }
-            }
+            prices = catalogQueryService.findPricesInRange(
+                    minPrice,
+                    maxPrice,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("conventionalUnit", "id")));
 
-            LOGGER.info(String.format("RECEIVED ALL PRICES WITH PRICE %d - %d", minPrice, maxPrice));
+            LOGGER.info("RECEIVED ALL PRICES WITH PRICE {} - {}", minPrice, maxPrice);
         } else if (priceCurrencyMatcher.find()) {
             String currency = value.split("-")[1];
 
-            prices = priceRepository.findAll()
-                    .stream()
-                    .filter(price -> price.getCurrency().equals(currency))
-                    .collect(Collectors.toList());
+            prices = catalogQueryService.findPricesByCurrency(
+                    currency,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("conventionalUnit", "id")));
 
-            LOGGER.info(String.format("RECEIVED ALL PRICES WITH CURRENCY  = %s", currency));
+            LOGGER.info("RECEIVED ALL PRICES WITH CURRENCY  = {}", currency);
         } else if (value.matches("[+]?\\d+")) {
-            Price price = priceRepository.getById(Long.parseLong(value));
-
-            Price priceForReturn = new Price();
-            priceForReturn.setId(price.getId());
-            priceForReturn.setProduct(price.getProduct());
-            priceForReturn.setConventionalUnit(price.getConventionalUnit());
-            priceForReturn.setCurrency(price.getCurrency());
+            PriceView price = catalogQueryService.findPrice(Long.parseLong(value))
+                    .orElseThrow(NotFoundException::new);
 
-            prices.add(priceForReturn);
+            prices.add(price);
+            tags.withLastModified();
 
-            LOGGER.info(String.format("RECEIVED CATEGORY WITH ID  = %s", value));
+            LOGGER.info("RECEIVED CATEGORY WITH ID  = {}", value);
         } else {
-            prices = priceRepository.findAll()
-                    .stream()
-                    .filter(price -> price.getProduct().getName().equals(value))
-                    .collect(Collectors.toList());
+            prices = catalogQueryService.findPricesByProductName(
+                    value,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("id")));
 
-            LOGGER.info(String.format("RECEIVED PRICES WITH PRODUCT NAME = %s", value));
+            LOGGER.info("RECEIVED PRICES WITH PRODUCT NAME = {}", value);
         }
 
-        return ResponseEntity.ok().body(prices);
+        return tags.views(prices).ok(prices);
     }
 
     @PostMapping()
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Price> createPrice(@RequestBody Price price) {
-        Price priceForCreate = null;
-
-        Product productFromDb = productRepository.findAll()
-                .stream()
-                .filter(product -> product.getName().equals(price.getProduct().getName()))
-                .findFirst()
-                .orElse(null);
-
-        if (productFromDb == null) {
+        if (price.getProduct() == null) {
             throw new NotFoundException();
-        } else {
-            List<Price> pricesFromDb = priceRepository.findAll();
-            price.setProduct(productFromDb);
-
-            for (Price p : pricesFromDb) {
-                if (p.getProduct().getName().equals(price.getProduct().getName())) {
-                    if (p.getCurrency().equals(price.getCurrency())) {
-                        priceForCreate = p;
-                    }
-                }
-            }
-
-            if (priceForCreate != null) {
-                updatePrice(priceForCreate, price);
-            } else {
-                priceForCreate = priceRepository.save(price);
-            }
         }
+        if (price.getCurrency() == null || price.getCurrency().isEmpty()) {
+            throw new BadRequestException("currency is required");
+        }
+
+        Product productFromDb = findProduct(price.getProduct()).orElseThrow(NotFoundException::new);
+        Price priceForCreate = priceUpsertService.upsert(
+                productFromDb.getId(),
+                price.getConventionalUnit(),
+                price.getCurrency());
+        eventPublisher.publishEvent(PriceChangeEvent.of(PriceChangeEvent.Type.SAVED, priceForCreate));
 
         LOGGER.info("ADDED NEW PRICE");
         return ResponseEntity.status(201).body(priceForCreate);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<PriceImportResult> importPrices(HttpServletRequest request) throws IOException {
+        PriceImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? PriceImportService.Format.CSV
+                : PriceImportService.Format.NDJSON;
+
+        PriceImportResult result = priceImportService.importPrices(request.getInputStream(), format);
+
+        LOGGER.info("IMPORTED PRICES: {} CREATED, {} UPDATED, {} FAILED",
+                result.getCreated(), result.getUpdated(), result.getFailed());
+        return ResponseEntity.ok().body(result);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Price> updatePrice(
             @PathVariable("id") Price priceFromDb,
             @RequestBody Price price) {
         price.setProduct(priceFromDb.getProduct());
-        BeanUtils.copyProperties(price, priceFromDb, "id");
+        // (product, currency) is the upsert key; moving a price to another currency goes through POST /price
+        BeanUtils.copyProperties(price, priceFromDb, "id", "currency");
+        Price updatedPrice = priceRepository.save(priceFromDb);
+        eventPublisher.publishEvent(PriceChangeEvent.of(PriceChangeEvent.Type.SAVED, updatedPrice));
 
-        LOGGER.info(String.format("UPDATED PRICE WITH ID  = %d", priceFromDb.getId()));
-        return ResponseEntity.ok().body(priceRepository.save(priceFromDb));
+        LOGGER.info("UPDATED PRICE WITH ID  = {}", priceFromDb.getId());
+        return ResponseEntity.ok().body(updatedPrice);
     }
 
     @DeleteMapping("/{id}")
@@ -156,8 +255,25 @@ public class PriceController {
     public ResponseEntity<Price> deletePrice(@PathVariable("id") Long id) {
         Price price = priceRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("id-" + id));
         priceRepository.deleteById(id);
+        eventPublisher.publishEvent(PriceChangeEvent.of(PriceChangeEvent.Type.DELETED, price));
 
-        LOGGER.info(String.format("DELETED PRICE WITH ID = %d", id));
+        LOGGER.info("DELETED PRICE WITH ID = {}", id);
         return ResponseEntity.ok().body(price);
     }
+
+    private static BigDecimal parseAmount(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Malformed amount " + value);
+        }
+    }
+
+    private Optional<Product> findProduct(Product product) {
+        if (product.getCategory() != null && product.getCategory().getId() != null) {
+            return productRepository.findFirstByNameAndCategoryId(product.getName(), product.getCategory().getId());
+        }
+
+        return productRepository.findFirstByName(product.getName());
+    }
 }
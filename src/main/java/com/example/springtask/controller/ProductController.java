@@ -2,9 +2,19 @@ package com.example.springtask.controller;
 
 import com.example.springtask.domain.store.Category;
 import com.example.springtask.domain.store.Product;
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.dto.NameSuggestion;
+import com.example.springtask.dto.ProductSearchResult;
+import com.example.springtask.dto.ProductView;
 import com.example.springtask.exceptions.NotFoundException;
 import com.example.springtask.repos.CategoryRepository;
 import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CatalogQueryService;
+import com.example.springtask.service.KeysetPaginationService;
+import com.example.springtask.service.NameSuggestService;
+import com.example.springtask.service.ProductSearchService;
+import com.example.springtask.utils.ETags;
+import com.example.springtask.utils.Paging;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
@@ -21,7 +31,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/product")
@@ -32,83 +41,151 @@ public class ProductController {
 
     private final CategoryRepository categoryRepository;
 
-    public ProductController(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    private final KeysetPaginationService keysetPaginationService;
+
+    private final CatalogQueryService catalogQueryService;
+
+    private final ProductSearchService productSearchService;
+
+    private final NameSuggestService nameSuggestService;
+
+    public ProductController(ProductRepository productRepository,
+                             CategoryRepository categoryRepository,
+                             KeysetPaginationService keysetPaginationService,
+                             CatalogQueryService catalogQueryService,
+                             ProductSearchService productSearchService,
+                             NameSuggestService nameSuggestService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.keysetPaginationService = keysetPaginationService;
+        this.catalogQueryService = catalogQueryService;
+        this.productSearchService = productSearchService;
+        this.nameSuggestService = nameSuggestService;
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<Page<Product>> categories(
+    public ResponseEntity<Page<ProductView>> categories(
             @RequestParam Optional<Integer> page,
-            @RequestParam Optional<String> sortBy
+            @RequestParam Optional<String> sortBy,
+            @RequestParam Optional<Integer> size
     ) {
-        Page<Product> products = productRepository.findAll(
+        Page<ProductView> products = catalogQueryService.findProducts(
                 PageRequest.of(page.orElse(0),
-                        10,
+                        Paging.pageSize(size),
                         Sort.Direction.ASC, sortBy.orElse("id")));
 
         LOGGER.info("RECEIVED ALL PRODUCTS");
-        return ResponseEntity.ok().body(products);
+        return new ETags().page(products).ok(products);
+    }
+
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<CursorPage<ProductView>> productsAfter(
+            @RequestParam String after,
+            @RequestParam Optional<Integer> limit,
+            @RequestParam Optional<String> sortBy) {
+        CursorPage<ProductView> products = catalogQueryService.toProductViews(keysetPaginationService.findPage(
+                Product.class,
+                sortBy.orElse("id"),
+                after,
+                Paging.pageSize(limit),
+                "Product.category"));
+
+        LOGGER.info("RECEIVED PRODUCTS AFTER CURSOR");
+        return new ETags().cursor(products).ok(products);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<ProductSearchResult> searchProducts(
+            @RequestParam Optional<Long> category,
+            @RequestParam Optional<Boolean> deep,
+            @RequestParam Optional<Integer> min,
+            @RequestParam Optional<Integer> max,
+            @RequestParam Optional<String> currency,
+            @RequestParam Optional<String> name,
+            @RequestParam Optional<Integer> bucketSize,
+            @RequestParam Optional<Integer> page,
+            @RequestParam Optional<Integer> size) {
+        ProductSearchResult result = productSearchService.search(
+                category.orElse(null),
+                deep.orElse(false),
+                min.orElse(null),
+                max.orElse(null),
+                currency.orElse(null),
+                name.orElse(null),
+                bucketSize.orElse(100),
+                page.orElse(0),
+                Paging.pageSize(size));
+
+        LOGGER.info("SEARCHED PRODUCTS: {} FOUND", result.getTotal());
+        return ResponseEntity.ok().body(result);
+    }
+
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAuthority('USER')")
+    public ResponseEntity<List<NameSuggestion>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam Optional<Integer> limit) {
+        List<NameSuggestion> suggestions = nameSuggestService.suggestProducts(q, Paging.pageSize(limit));
+
+        LOGGER.debug("SUGGESTED {} PRODUCTS FOR {}", suggestions.size(), q);
+        return ResponseEntity.ok().body(suggestions);
     }
 
     @GetMapping("/{value}")
     @PreAuthorize("hasAuthority('USER')")
-    public ResponseEntity<List<Product>> getProductsByValue(@PathVariable("value") String value) {
+    public ResponseEntity<List<ProductView>> getProductsByValue(
+            @PathVariable("value") String value,
+            @RequestParam Optional<Integer> page) {
         Pattern categoryIdPattern = Pattern.compile("category_id-");
         Matcher categoryIdMatcher = categoryIdPattern.matcher(value);
-        List<Product> products = new ArrayList<>();
+        List<ProductView> products = new ArrayList<>();
+        ETags tags = new ETags();
 
         if (value.matches("[+]?\\d+")) {
-            Product product = productRepository.getById(Long.parseLong(value));
-
-            Product productForReturn = new Product();
-            productForReturn.setId(product.getId());
-            productForReturn.setCategory(product.getCategory());
-            productForReturn.setName(product.getName());
+            ProductView product = catalogQueryService.findProduct(Long.parseLong(value))
+                    .orElseThrow(NotFoundException::new);
 
-            products.add(productForReturn);
+            products.add(product);
+            tags.withLastModified();
 
-            LOGGER.info(String.format("RECEIVED PRODUCT WITH ID  = %s", value));
+            LOGGER.info("RECEIVED PRODUCT WITH ID  = {}", value);
         } else if (categoryIdMatcher.find()) {
             Long categoryId = Long.parseLong(value.split("-")[1]);
 
-            products = productRepository.findAll()
-                    .stream()
-                    .filter(product -> product.getCategory().getId().equals(categoryId))
-                    .collect(Collectors.toList());
+            products = catalogQueryService.findProductsByCategory(
+                    categoryId,
+                    false,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("id")));
 
-            LOGGER.info(String.format("RECEIVED PRODUCT WITH CATEGORY ID = %d", categoryId));
+            LOGGER.info("RECEIVED PRODUCT WITH CATEGORY ID = {}", categoryId);
         } else {
-            products = productRepository.findAll()
-                    .stream()
-                    .filter(product -> product.getName().equals(value))
-                    .collect(Collectors.toList());
+            products = catalogQueryService.findProductsByName(
+                    value,
+                    PageRequest.of(page.orElse(0), 10, Sort.by("id")));
 
-            LOGGER.info(String.format("RECEIVED PRODUCT WITH NAME = %s", value));
+            LOGGER.info("RECEIVED PRODUCT WITH NAME = {}", value);
         }
 
-        return ResponseEntity.ok().body(products);
+        return tags.views(products).ok(products);
     }
 
     @PostMapping()
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
-        Product productForCreate = null;
-
-        Category categoryFromDb = categoryRepository.findAll()
-                .stream()
-                .filter(c -> c.equals(product.getCategory()))
-                .findFirst()
-                .orElse(null);
-
-        if (categoryFromDb == null) {
+        if (product.getCategory() == null) {
             throw new NotFoundException();
-        } else {
-            product.setCategory(categoryFromDb);
-            productForCreate = productRepository.save(product);
         }
 
+        Category categoryFromDb = categoryRepository.findFirstByName(product.getCategory().getName())
+                .orElseThrow(NotFoundException::new);
+
+        product.setCategory(categoryFromDb);
+        Product productForCreate = productRepository.save(product);
+        nameSuggestService.productSaved(productForCreate.getId(), productForCreate.getName());
+
         LOGGER.info("ADDED NEW PRODUCT");
         return ResponseEntity.status(201).body(productForCreate);
     }
@@ -120,9 +197,11 @@ public class ProductController {
             @RequestBody Product product) {
         product.setCategory(productFromDb.getCategory());
         BeanUtils.copyProperties(product, productFromDb, "id");
+        Product updatedProduct = productRepository.save(productFromDb);
+        nameSuggestService.productSaved(updatedProduct.getId(), updatedProduct.getName());
 
-        LOGGER.info(String.format("UPDATED PRODUCT WITH ID  = %d", productFromDb.getId()));
-        return ResponseEntity.ok().body(productRepository.save(productFromDb));
+        LOGGER.info("UPDATED PRODUCT WITH ID  = {}", productFromDb.getId());
+        return ResponseEntity.ok().body(updatedProduct);
     }
 
     @DeleteMapping("/{id}")
@@ -130,8 +209,9 @@ public class ProductController {
     public ResponseEntity<Product> deleteProduct(@PathVariable("id") Long id) {
         Product product = productRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("id-" + id));
         productRepository.deleteById(id);
+        nameSuggestService.productDeleted(id);
 
-        LOGGER.info(String.format("DELETED PRODUCT WITH ID  = %d", id));
+        LOGGER.info("DELETED PRODUCT WITH ID  = {}", id);
         return ResponseEntity.ok().body(product);
     }
 }
@@ -3,6 +3,7 @@ package com.example.springtask.controller;
 import com.example.springtask.domain.security.Role;
 import com.example.springtask.domain.security.User;
 import com.example.springtask.repos.UserRepository;
+import com.example.springtask.service.UserService;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -15,9 +16,11 @@ import java.util.Collections;
 @RequestMapping("registration")
 public class RegistrationController {
     private final UserRepository userRepository;
+    private final UserService userService;
 
-    public RegistrationController(UserRepository userRepository) {
+    public RegistrationController(UserRepository userRepository, UserService userService) {
         this.userRepository = userRepository;
+        this.userService = userService;
     }
 
     @GetMapping
@@ -36,7 +39,7 @@ public class RegistrationController {
 
         user.setActive(true);
         user.setRoles(Collections.singleton(Role.USER));
-        userRepository.save(user);
+        userService.saveUser(user);
 
         return "redirect:/login";
     }
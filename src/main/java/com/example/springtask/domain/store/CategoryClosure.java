@@ -0,0 +1,43 @@
+package com.example.springtask.domain.store;
+
+import javax.persistence.*;
+
+/**
+ * One row per (ancestor, descendant) pair of the category hierarchy, including the
+ * (category, category) row with depth 0. Maintained by CategoryHierarchyService.
+ */
+@Entity
+@Table(name = "category_closure", indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, depth")
+})
+public class CategoryClosure {
+    @EmbeddedId
+    private CategoryClosureId id;
+
+    @Column(name = "depth")
+    private int depth;
+
+    public CategoryClosure() {
+    }
+
+    public CategoryClosure(Long ancestorId, Long descendantId, int depth) {
+        this.id = new CategoryClosureId(ancestorId, descendantId);
+        this.depth = depth;
+    }
+
+    public CategoryClosureId getId() {
+        return id;
+    }
+
+    public void setId(CategoryClosureId id) {
+        this.id = id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+}
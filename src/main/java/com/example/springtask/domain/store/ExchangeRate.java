@@ -0,0 +1,45 @@
+package com.example.springtask.domain.store;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+
+/**
+ * How many units of the base currency one unit of {@link #currency} is worth.
+ */
+@Entity
+@Table(name = "exchange_rates")
+public class ExchangeRate {
+    @Id
+    @Column(name = "currency")
+    private String currency;
+
+    @Column(name = "rate", precision = 19, scale = 6, nullable = false)
+    private BigDecimal rate;
+
+    public ExchangeRate() {
+    }
+
+    public ExchangeRate(String currency, BigDecimal rate) {
+        this.currency = currency;
+        this.rate = rate;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+}
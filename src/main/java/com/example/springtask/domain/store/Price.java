@@ -1,22 +1,59 @@
 package com.example.springtask.domain.store;
 
+import com.example.springtask.service.PriceHistoryListener;
+import com.example.springtask.service.PriceNormalizationListener;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "prices")
+@NamedEntityGraph(
+        name = "Price.product",
+        attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product"),
+        subgraphs = @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("category"))
+)
+@Table(name = "prices", indexes = {
+        @Index(name = "idx_prices_conventional_unit", columnList = "conventional_unit, id"),
+        @Index(name = "idx_prices_currency", columnList = "currency, conventional_unit"),
+        @Index(name = "idx_prices_normalized_amount", columnList = "normalized_amount, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_prices_product_currency", columnNames = {"product_id", "currency"})
+})
+@EntityListeners({PriceNormalizationListener.class, PriceHistoryListener.class})
 public class Price {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prices_seq")
+    @SequenceGenerator(name = "prices_seq", sequenceName = "prices_seq", allocationSize = 50)
     private Long id;
 
-    @OneToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
+    @Column(name = "conventional_unit")
     private int conventionalUnit;
 
+    @Column(name = "currency")
     private String currency;
 
+    @Column(name = "normalized_amount", precision = 19, scale = 4)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BigDecimal normalizedAmount;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @Column(name = "last_modified")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     public Price() {
     }
 
@@ -33,6 +70,20 @@ public class Price {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
     public Product getProduct() {
         return product;
     }
@@ -56,4 +107,15 @@ public class Price {
     public void setCurrency(String currency) {
         this.currency = currency;
     }
+
+    /**
+     * The amount converted to the base currency, or {@code null} while the currency has no rate.
+     */
+    public BigDecimal getNormalizedAmount() {
+        return normalizedAmount;
+    }
+
+    public void setNormalizedAmount(BigDecimal normalizedAmount) {
+        this.normalizedAmount = normalizedAmount;
+    }
 }
@@ -0,0 +1,47 @@
+package com.example.springtask.domain.store;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Append-only log of price values, one row per change. Rows are written with plain JDBC by
+ * PriceHistoryService and outlive the price itself. The (price_id, changed_at, conventional_unit)
+ * index covers the history queries, so they never read the table rows.
+ */
+@Entity
+@Table(name = "price_history", indexes = {
+        @Index(name = "idx_price_history_price_time", columnList = "price_id, changed_at, conventional_unit")
+})
+public class PriceHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "price_id", nullable = false)
+    private Long priceId;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    @Column(name = "conventional_unit", nullable = false)
+    private int conventionalUnit;
+
+    public PriceHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPriceId() {
+        return priceId;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public int getConventionalUnit() {
+        return conventionalUnit;
+    }
+}
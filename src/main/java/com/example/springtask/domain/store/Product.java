@@ -1,20 +1,42 @@
 package com.example.springtask.domain.store;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "products")
+@NamedEntityGraph(name = "Product.category", attributeNodes = @NamedAttributeNode("category"))
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_category", columnList = "name, category_id"),
+        @Index(name = "idx_products_category", columnList = "category_id, id")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
+    @Column(name = "name")
     private String name;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @Column(name = "last_modified")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     public Product(String name) {
         this.name = name;
     }
@@ -30,6 +52,20 @@ public class Product {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
     public Category getCategory() {
         return category;
     }
@@ -45,4 +81,4 @@ public class Product {
     public void setName(String name) {
         this.name = name;
     }
-}
\ No newline at end of file
+}
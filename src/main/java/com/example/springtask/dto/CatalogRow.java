@@ -0,0 +1,53 @@
+package com.example.springtask.dto;
+
+/**
+ * One (product, price) pair of the catalog export; products without prices have null price fields.
+ */
+public class CatalogRow {
+    private final Long productId;
+    private final String productName;
+    private final Long categoryId;
+    private final String categoryName;
+    private final Long priceId;
+    private final Integer conventionalUnit;
+    private final String currency;
+
+    public CatalogRow(Long productId, String productName, Long categoryId, String categoryName,
+                      Long priceId, Integer conventionalUnit, String currency) {
+        this.productId = productId;
+        this.productName = productName;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.priceId = priceId;
+        this.conventionalUnit = conventionalUnit;
+        this.currency = currency;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Long getPriceId() {
+        return priceId;
+    }
+
+    public Integer getConventionalUnit() {
+        return conventionalUnit;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.springtask.dto;
+
+public class CategoryDeletionResult {
+    private final int categoriesDeleted;
+    private int productsReassigned;
+    private int productsDeleted;
+    private int pricesDeleted;
+
+    public CategoryDeletionResult(int categoriesDeleted) {
+        this.categoriesDeleted = categoriesDeleted;
+    }
+
+    public int getCategoriesDeleted() {
+        return categoriesDeleted;
+    }
+
+    public int getProductsReassigned() {
+        return productsReassigned;
+    }
+
+    public void setProductsReassigned(int productsReassigned) {
+        this.productsReassigned = productsReassigned;
+    }
+
+    public int getProductsDeleted() {
+        return productsDeleted;
+    }
+
+    public void setProductsDeleted(int productsDeleted) {
+        this.productsDeleted = productsDeleted;
+    }
+
+    public int getPricesDeleted() {
+        return pricesDeleted;
+    }
+
+    public void setPricesDeleted(int pricesDeleted) {
+        this.pricesDeleted = pricesDeleted;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.springtask.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CategoryView {
+    private final Long id;
+    private final String name;
+    private final long version;
+    private final Instant lastModified;
+    private final List<CategoryView> superCategories = new ArrayList<>();
+
+    public CategoryView(Long id, String name, long version, Instant lastModified) {
+        this.id = id;
+        this.name = name;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<CategoryView> getSuperCategories() {
+        return superCategories;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
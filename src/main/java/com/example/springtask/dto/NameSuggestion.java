@@ -0,0 +1,19 @@
+package com.example.springtask.dto;
+
+public class NameSuggestion {
+    private final Long id;
+    private final String name;
+
+    public NameSuggestion(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springtask.dto;
+
+import com.example.springtask.domain.store.Price;
+
+import java.math.BigDecimal;
+
+/**
+ * A committed change of one price. Consumers treat it as the latest state of the price,
+ * so several changes of the same price may be delivered as just the last one.
+ */
+public class PriceChangeEvent {
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long priceId;
+    private final Long productId;
+    private final int conventionalUnit;
+    private final String currency;
+    private final BigDecimal normalizedAmount;
+
+    public PriceChangeEvent(Type type, Long priceId, Long productId, int conventionalUnit, String currency,
+                            BigDecimal normalizedAmount) {
+        this.type = type;
+        this.priceId = priceId;
+        this.productId = productId;
+        this.conventionalUnit = conventionalUnit;
+        this.currency = currency;
+        this.normalizedAmount = normalizedAmount;
+    }
+
+    public static PriceChangeEvent of(Type type, Price price) {
+        return new PriceChangeEvent(type, price.getId(),
+                price.getProduct() == null ? null : price.getProduct().getId(),
+                price.getConventionalUnit(), price.getCurrency(), price.getNormalizedAmount());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getPriceId() {
+        return priceId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getConventionalUnit() {
+        return conventionalUnit;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getNormalizedAmount() {
+        return normalizedAmount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.springtask.dto;
+
+import java.time.Instant;
+
+public class PriceHistoryBucket {
+    private final Instant from;
+    private final int min;
+    private final int max;
+    private final int last;
+    private final long count;
+
+    public PriceHistoryBucket(Instant from, int min, int max, int last, long count) {
+        this.from = from;
+        this.min = min;
+        this.max = max;
+        this.last = last;
+        this.count = count;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public int getLast() {
+        return last;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
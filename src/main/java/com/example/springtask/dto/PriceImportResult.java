@@ -0,0 +1,62 @@
+package com.example.springtask.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PriceImportResult {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private long created;
+    private long updated;
+    private long failed;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void addCreated(long count) {
+        created += count;
+    }
+
+    public void addUpdated(long count) {
+        updated += count;
+    }
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
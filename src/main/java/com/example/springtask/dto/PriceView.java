@@ -0,0 +1,53 @@
+package com.example.springtask.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class PriceView {
+    private final Long id;
+    private final ProductView product;
+    private final int conventionalUnit;
+    private final String currency;
+    private final BigDecimal normalizedAmount;
+    private final long version;
+    private final Instant lastModified;
+
+    public PriceView(Long id, ProductView product, int conventionalUnit, String currency, BigDecimal normalizedAmount,
+                     long version, Instant lastModified) {
+        this.id = id;
+        this.product = product;
+        this.conventionalUnit = conventionalUnit;
+        this.currency = currency;
+        this.normalizedAmount = normalizedAmount;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ProductView getProduct() {
+        return product;
+    }
+
+    public int getConventionalUnit() {
+        return conventionalUnit;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getNormalizedAmount() {
+        return normalizedAmount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springtask.dto;
+
+import java.util.List;
+
+public class ProductSearchResult {
+    private final List<ProductView> content;
+    private final long total;
+    private final List<CategoryFacet> categories;
+    private final List<PriceBucket> priceBuckets;
+
+    public ProductSearchResult(List<ProductView> content, long total,
+                               List<CategoryFacet> categories, List<PriceBucket> priceBuckets) {
+        this.content = content;
+        this.total = total;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+    }
+
+    public List<ProductView> getContent() {
+        return content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<CategoryFacet> getCategories() {
+        return categories;
+    }
+
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    public static class CategoryFacet {
+        private final Long id;
+        private final String name;
+        private final long count;
+
+        public CategoryFacet(Long id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class PriceBucket {
+        private final int from;
+        private final int to;
+        private final long count;
+
+        public PriceBucket(int from, int to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
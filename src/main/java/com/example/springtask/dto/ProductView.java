@@ -0,0 +1,39 @@
+package com.example.springtask.dto;
+
+import java.time.Instant;
+
+public class ProductView {
+    private final Long id;
+    private final String name;
+    private final CategoryView category;
+    private final long version;
+    private final Instant lastModified;
+
+    public ProductView(Long id, String name, CategoryView category, long version, Instant lastModified) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CategoryView getCategory() {
+        return category;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
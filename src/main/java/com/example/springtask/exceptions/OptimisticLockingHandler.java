@@ -0,0 +1,26 @@
+package com.example.springtask.exceptions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers a write that lost the {@code @Version} check with 409 Conflict: the row changed since it was read,
+ * so the client should fetch it again and retry.
+ */
+@RestControllerAdvice
+public class OptimisticLockingHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptimisticLockingHandler.class);
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public void conflict(ObjectOptimisticLockingFailureException e, HttpServletResponse response) throws IOException {
+        LOGGER.info("STALE WRITE OF {} WITH ID = {}", e.getPersistentClassName(), e.getIdentifier());
+        response.sendError(HttpStatus.CONFLICT.value(), "The resource was modified concurrently");
+    }
+}
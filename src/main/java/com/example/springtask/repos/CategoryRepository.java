@@ -1,9 +1,65 @@
 package com.example.springtask.repos;
 
+import com.example.springtask.config.CacheConfig;
 import com.example.springtask.domain.store.Category;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Categories are embedded in other categories, products and prices, so every
+ * category write invalidates all catalog caches.
+ */
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @Override
+    @CacheEvict(value = {CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    <S extends Category> S save(S entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    <S extends Category> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    void delete(Category entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    void deleteAll();
+
+    List<Category> findByName(String name);
+
+    Optional<Category> findFirstByName(String name);
+
+    @Query("select c.id from Category c")
+    List<Long> findAllIds();
+
+    @Query("select c.id, s.id from Category c join c.superCategories s")
+    List<Object[]> findAllSuperCategoryLinks();
+
+    @Query("select c from Category c where c.id in " +
+            "(select cc.id.descendantId from CategoryClosure cc where cc.id.ancestorId = :categoryId and cc.depth > 0)")
+    List<Category> findDescendants(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    /**
+     * Every category in {@code ids} together with all of its ancestors, one row per super category link.
+     */
+    @Query("select c.id, c.name, c.version, c.lastModified, s.id, s.name, s.version, s.lastModified " +
+            "from Category c left join c.superCategories s " +
+            "where c.id in :ids or c.id in " +
+            "(select cc.id.ancestorId from CategoryClosure cc where cc.id.descendantId in :ids) " +
+            "order by c.id, s.id")
+    List<Object[]> findHierarchyRows(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,7 @@
+package com.example.springtask.repos;
+
+import com.example.springtask.domain.store.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, String> {
+}
@@ -1,7 +1,72 @@
 package com.example.springtask.repos;
 
+import com.example.springtask.config.CacheConfig;
 import com.example.springtask.domain.store.Price;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PriceRepository extends JpaRepository<Price, Long> {
+    @EntityGraph("Price.product")
+    Optional<Price> findWithProductById(Long id);
+
+    @Override
+    @EntityGraph("Price.product")
+    Page<Price> findAll(Pageable pageable);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRICES, key = "#p0.id", condition = "#p0.id != null"),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    <S extends Price> S save(S entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    <S extends Price> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRICES, key = "#p0"),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    void deleteById(Long id);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRICES, key = "#p0.id"),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    void delete(Price entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    void deleteAll();
+
+    @EntityGraph("Price.product")
+    List<Price> findByConventionalUnitGreaterThanAndConventionalUnitLessThan(int minPrice, int maxPrice, Pageable pageable);
+
+    @EntityGraph("Price.product")
+    List<Price> findByNormalizedAmountBetween(BigDecimal min, BigDecimal max, Pageable pageable);
+
+    @EntityGraph("Price.product")
+    List<Price> findByCurrency(String currency, Pageable pageable);
+
+    @EntityGraph("Price.product")
+    List<Price> findByProductName(String name, Pageable pageable);
+
+    Optional<Price> findFirstByProductIdAndCurrency(Long productId, String currency);
+
+    @Query("select p.id, p.product.id, p.currency from Price p where p.product.id in :productIds")
+    List<Object[]> findKeysByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
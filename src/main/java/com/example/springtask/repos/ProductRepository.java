@@ -1,7 +1,78 @@
 package com.example.springtask.repos;
 
+import com.example.springtask.config.CacheConfig;
 import com.example.springtask.domain.store.Product;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @EntityGraph("Product.category")
+    Optional<Product> findWithCategoryById(Long id);
+
+    @Override
+    @EntityGraph("Product.category")
+    Page<Product> findAll(Pageable pageable);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRODUCTS, key = "#p0.id", condition = "#p0.id != null"),
+            @CacheEvict(value = CacheConfig.PRODUCT_PAGES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    <S extends Product> S save(S entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    <S extends Product> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRODUCTS, key = "#p0"),
+            @CacheEvict(value = CacheConfig.PRODUCT_PAGES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    void deleteById(Long id);
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRODUCTS, key = "#p0.id"),
+            @CacheEvict(value = CacheConfig.PRODUCT_PAGES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICES, allEntries = true),
+            @CacheEvict(value = CacheConfig.PRICE_PAGES, allEntries = true)
+    })
+    void delete(Product entity);
+
+    @Override
+    @CacheEvict(value = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}, allEntries = true)
+    void deleteAll();
+
+    @EntityGraph("Product.category")
+    List<Product> findByName(String name, Pageable pageable);
+
+    @EntityGraph("Product.category")
+    List<Product> findByCategoryId(Long categoryId, Pageable pageable);
+
+    Optional<Product> findFirstByName(String name);
+
+    Optional<Product> findFirstByNameAndCategoryId(String name, Long categoryId);
+
+    @Query("select p.id, p.name from Product p where p.name in :names order by p.id")
+    List<Object[]> findIdsByNameIn(@Param("names") Collection<String> names);
+
+    @EntityGraph("Product.category")
+    @Query("select p from Product p where p.category.id in " +
+            "(select cc.id.descendantId from CategoryClosure cc where cc.id.ancestorId = :categoryId)")
+    List<Product> findByCategorySubtree(@Param("categoryId") Long categoryId, Pageable pageable);
 }
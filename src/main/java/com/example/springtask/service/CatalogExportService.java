@@ -0,0 +1,159 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.CatalogRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog straight from a forward-only JDBC cursor to the response, so
+ * memory use does not depend on the number of products.
+ */
+@Service
+public class CatalogExportService {
+    private static final String CATALOG_QUERY = "select new com.example.springtask.dto.CatalogRow(" +
+            "p.id, p.name, c.id, c.name, pr.id, pr.conventionalUnit, pr.currency) " +
+            "from Product p left join p.category c left join Price pr on pr.product = p " +
+            "order by p.id, pr.id";
+
+    private static final String CSV_HEADER =
+            "product_id,product_name,category_id,category_name,price_id,conventional_unit,currency";
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public CatalogExportService(ObjectMapper objectMapper, @Value("${store.export.fetch-size}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(OutputStream outputStream, Format format) throws IOException {
+        try (Stream<CatalogRow> rows = entityManager.createQuery(CATALOG_QUERY, CatalogRow.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            if (format == Format.CSV) {
+                writeCsv(rows.iterator(), outputStream);
+            } else {
+                writeNdjson(rows.iterator(), outputStream);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<CatalogRow> rows, OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        Long currentProductId = null;
+        long count = 0;
+
+        while (rows.hasNext()) {
+            CatalogRow row = rows.next();
+
+            if (!row.getProductId().equals(currentProductId)) {
+                if (currentProductId != null) {
+                    endProduct(generator);
+                }
+                startProduct(generator, row);
+                currentProductId = row.getProductId();
+            }
+
+            if (row.getPriceId() != null) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", row.getPriceId());
+                generator.writeNumberField("conventionalUnit", row.getConventionalUnit());
+                generator.writeStringField("currency", row.getCurrency());
+                generator.writeEndObject();
+            }
+
+            if (++count % fetchSize == 0) {
+                generator.flush();
+            }
+        }
+
+        if (currentProductId != null) {
+            endProduct(generator);
+        }
+        generator.flush();
+    }
+
+    private void startProduct(JsonGenerator generator, CatalogRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getProductId());
+        generator.writeStringField("name", row.getProductName());
+
+        if (row.getCategoryId() != null) {
+            generator.writeObjectFieldStart("category");
+            generator.writeNumberField("id", row.getCategoryId());
+            generator.writeStringField("name", row.getCategoryName());
+            generator.writeEndObject();
+        } else {
+            generator.writeNullField("category");
+        }
+
+        generator.writeArrayFieldStart("prices");
+    }
+
+    private void endProduct(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeCsv(Iterator<CatalogRow> rows, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+
+        while (rows.hasNext()) {
+            CatalogRow row = rows.next();
+            writer.write(String.valueOf(row.getProductId()));
+            writer.write(',');
+            writer.write(csvValue(row.getProductName()));
+            writer.write(',');
+            writer.write(csvValue(row.getCategoryId()));
+            writer.write(',');
+            writer.write(csvValue(row.getCategoryName()));
+            writer.write(',');
+            writer.write(csvValue(row.getPriceId()));
+            writer.write(',');
+            writer.write(csvValue(row.getConventionalUnit()));
+            writer.write(',');
+            writer.write(csvValue(row.getCurrency()));
+            writer.write('\n');
+
+            if (++count % fetchSize == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static String csvValue(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            return text;
+        }
+
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
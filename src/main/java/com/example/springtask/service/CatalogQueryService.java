@@ -0,0 +1,205 @@
+package com.example.springtask.service;
+
+import com.example.springtask.config.CacheConfig;
+import com.example.springtask.domain.store.Category;
+import com.example.springtask.domain.store.Price;
+import com.example.springtask.domain.store.Product;
+import com.example.springtask.dto.CategoryView;
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.dto.PriceView;
+import com.example.springtask.dto.ProductView;
+import com.example.springtask.repos.CategoryRepository;
+import com.example.springtask.repos.PriceRepository;
+import com.example.springtask.repos.ProductRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Read side of the catalog. Rows are loaded with their product and category in one fetch-joined
+ * query, and the super categories of a whole page are resolved through the closure table in one
+ * more query, so the statement count does not depend on page size or category depth.
+ * Results are detached views and are safe to cache.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogQueryService {
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final PriceRepository priceRepository;
+
+    public CatalogQueryService(CategoryRepository categoryRepository,
+                               ProductRepository productRepository,
+                               PriceRepository priceRepository) {
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.priceRepository = priceRepository;
+    }
+
+    @Cacheable(value = CacheConfig.CATEGORIES, key = "#p0", unless = "#result == null || " + CacheConfig.STALE_READ)
+    public Optional<CategoryView> findCategory(Long id) {
+        return Optional.ofNullable(categoryViews(Collections.singleton(id)).get(id));
+    }
+
+    @Cacheable(value = CacheConfig.CATEGORY_PAGES, key = "#p0", unless = CacheConfig.STALE_READ)
+    public Page<CategoryView> findCategories(Pageable pageable) {
+        Page<Category> categories = categoryRepository.findAll(pageable);
+        return new PageImpl<>(toCategoryViews(categories.getContent()), pageable, categories.getTotalElements());
+    }
+
+    public List<CategoryView> findCategoriesByName(String name) {
+        return toCategoryViews(categoryRepository.findByName(name));
+    }
+
+    public List<CategoryView> findDescendants(Long categoryId, Pageable pageable) {
+        return toCategoryViews(categoryRepository.findDescendants(categoryId, pageable));
+    }
+
+    @Cacheable(value = CacheConfig.PRODUCTS, key = "#p0", unless = "#result == null || " + CacheConfig.STALE_READ)
+    public Optional<ProductView> findProduct(Long id) {
+        return productRepository.findWithCategoryById(id)
+                .map(product -> toProductViews(Collections.singletonList(product)).get(0));
+    }
+
+    @Cacheable(value = CacheConfig.PRODUCT_PAGES, key = "#p0", unless = CacheConfig.STALE_READ)
+    public Page<ProductView> findProducts(Pageable pageable) {
+        Page<Product> products = productRepository.findAll(pageable);
+        return new PageImpl<>(toProductViews(products.getContent()), pageable, products.getTotalElements());
+    }
+
+    public List<ProductView> findProductsByName(String name, Pageable pageable) {
+        return toProductViews(productRepository.findByName(name, pageable));
+    }
+
+    public List<ProductView> findProductsByCategory(Long categoryId, boolean deep, Pageable pageable) {
+        return toProductViews(deep
+                ? productRepository.findByCategorySubtree(categoryId, pageable)
+                : productRepository.findByCategoryId(categoryId, pageable));
+    }
+
+    @Cacheable(value = CacheConfig.PRICES, key = "#p0", unless = "#result == null || " + CacheConfig.STALE_READ)
+    public Optional<PriceView> findPrice(Long id) {
+        return priceRepository.findWithProductById(id)
+                .map(price -> toPriceViews(Collections.singletonList(price)).get(0));
+    }
+
+    @Cacheable(value = CacheConfig.PRICE_PAGES, key = "#p0", unless = CacheConfig.STALE_READ)
+    public Page<PriceView> findPrices(Pageable pageable) {
+        Page<Price> prices = priceRepository.findAll(pageable);
+        return new PageImpl<>(toPriceViews(prices.getContent()), pageable, prices.getTotalElements());
+    }
+
+    public List<PriceView> findPricesInRange(int minPrice, int maxPrice, Pageable pageable) {
+        return toPriceViews(priceRepository.findByConventionalUnitGreaterThanAndConventionalUnitLessThan(
+                minPrice, maxPrice, pageable));
+    }
+
+    public List<PriceView> findPricesInNormalizedRange(BigDecimal min, BigDecimal max, Pageable pageable) {
+        return toPriceViews(priceRepository.findByNormalizedAmountBetween(min, max, pageable));
+    }
+
+    public List<PriceView> findPricesByCurrency(String currency, Pageable pageable) {
+        return toPriceViews(priceRepository.findByCurrency(currency, pageable));
+    }
+
+    public List<PriceView> findPricesByProductName(String name, Pageable pageable) {
+        return toPriceViews(priceRepository.findByProductName(name, pageable));
+    }
+
+    public CursorPage<CategoryView> toCategoryViews(CursorPage<Category> page) {
+        return new CursorPage<>(toCategoryViews(page.getContent()), page.getNext());
+    }
+
+    public CursorPage<ProductView> toProductViews(CursorPage<Product> page) {
+        return new CursorPage<>(toProductViews(page.getContent()), page.getNext());
+    }
+
+    public CursorPage<PriceView> toPriceViews(CursorPage<Price> page) {
+        return new CursorPage<>(toPriceViews(page.getContent()), page.getNext());
+    }
+
+    private List<CategoryView> toCategoryViews(List<Category> categories) {
+        Set<Long> ids = new HashSet<>();
+        for (Category category : categories) {
+            ids.add(category.getId());
+        }
+
+        Map<Long, CategoryView> views = categoryViews(ids);
+        List<CategoryView> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            result.add(views.get(category.getId()));
+        }
+
+        return result;
+    }
+
+    public List<ProductView> toProductViews(List<Product> products) {
+        Set<Long> categoryIds = new HashSet<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                categoryIds.add(product.getCategory().getId());
+            }
+        }
+
+        Map<Long, CategoryView> categories = categoryViews(categoryIds);
+        List<ProductView> result = new ArrayList<>(products.size());
+        for (Product product : products) {
+            result.add(toProductView(product, categories));
+        }
+
+        return result;
+    }
+
+    public List<PriceView> toPriceViews(List<Price> prices) {
+        Set<Long> categoryIds = new HashSet<>();
+        for (Price price : prices) {
+            if (price.getProduct() != null && price.getProduct().getCategory() != null) {
+                categoryIds.add(price.getProduct().getCategory().getId());
+            }
+        }
+
+        Map<Long, CategoryView> categories = categoryViews(categoryIds);
+        List<PriceView> result = new ArrayList<>(prices.size());
+        for (Price price : prices) {
+            ProductView product = price.getProduct() == null ? null : toProductView(price.getProduct(), categories);
+            result.add(new PriceView(price.getId(), product, price.getConventionalUnit(), price.getCurrency(),
+                    price.getNormalizedAmount(), price.getVersion(), price.getLastModified()));
+        }
+
+        return result;
+    }
+
+    private static ProductView toProductView(Product product, Map<Long, CategoryView> categories) {
+        CategoryView category = product.getCategory() == null ? null : categories.get(product.getCategory().getId());
+        return new ProductView(product.getId(), product.getName(), category,
+                product.getVersion(), product.getLastModified());
+    }
+
+    /**
+     * Views of the given categories with their complete super category chains, in a single query.
+     */
+    private Map<Long, CategoryView> categoryViews(Collection<Long> ids) {
+        Map<Long, CategoryView> views = new HashMap<>();
+        if (ids.isEmpty()) {
+            return views;
+        }
+
+        for (Object[] row : categoryRepository.findHierarchyRows(ids)) {
+            CategoryView category = views.computeIfAbsent((Long) row[0],
+                    id -> new CategoryView(id, (String) row[1], (Long) row[2], (Instant) row[3]));
+            if (row[4] != null) {
+                category.getSuperCategories().add(views.computeIfAbsent((Long) row[4],
+                        id -> new CategoryView(id, (String) row[5], (Long) row[6], (Instant) row[7])));
+            }
+        }
+
+        return views;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.springtask.service;
+
+import com.example.springtask.config.CacheConfig;
+import com.example.springtask.dto.CategoryDeletionResult;
+import com.example.springtask.dto.PriceChangeEvent;
+import com.example.springtask.exceptions.BadRequestException;
+import com.example.springtask.exceptions.NotFoundException;
+import com.example.springtask.utils.AfterCommit;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deletes categories with a fixed number of set-based statements, so the cost follows the rows
+ * that are touched and not the size of the catalog.
+ * <p>
+ * Children of a deleted category are linked to its nearest surviving super categories, skipping
+ * any super categories deleted in the same call. Its products either move to the nearest
+ * surviving super category or are deleted together with their prices; the price history stays.
+ * Caches and the name index only change once the deletion has committed.
+ */
+@Service
+public class CategoryDeletionService {
+    /**
+     * The deleted ids, bound as one array parameter with {@link #bind}. H2 matches no rows when
+     * {@code UNNEST(?)} is used as an IN subquery, so the array goes through {@code TABLE} instead.
+     */
+    static final String DELETED = "(SELECT X FROM TABLE(X BIGINT = ?))";
+
+    /**
+     * For a link from a surviving child to a deleted category d, walks up from d through deleted
+     * categories only and links the child to the surviving super categories found there.
+     */
+    private static final String RELINK_CHILDREN = "INSERT INTO categories_super_categories " +
+            "(category_id, super_category_id) " +
+            "SELECT DISTINCT l.category_id, up.super_category_id FROM categories_super_categories l " +
+            "JOIN category_closure x ON x.descendant_id = l.super_category_id " +
+            "JOIN categories_super_categories up ON up.category_id = x.ancestor_id " +
+            "WHERE l.super_category_id IN " + DELETED + " AND l.category_id NOT IN " + DELETED + " " +
+            "AND x.ancestor_id IN " + DELETED + " AND up.super_category_id NOT IN " + DELETED + " " +
+            "AND NOT EXISTS (SELECT 1 FROM category_closure s " +
+            "JOIN category_closure t ON t.descendant_id = s.ancestor_id " +
+            "WHERE s.descendant_id = l.super_category_id AND s.depth > 0 " +
+            "AND t.ancestor_id = x.ancestor_id AND t.depth > 0 AND s.ancestor_id NOT IN " + DELETED + ") " +
+            "AND NOT EXISTS (SELECT 1 FROM categories_super_categories e " +
+            "WHERE e.category_id = l.category_id AND e.super_category_id = up.super_category_id)";
+
+    private static final String TOUCH_CHILDREN = "UPDATE categories " +
+            "SET version = version + 1, last_modified = LOCALTIMESTAMP WHERE id IN (" +
+            "SELECT l.category_id FROM categories_super_categories l " +
+            "WHERE l.super_category_id IN " + DELETED + " AND l.category_id NOT IN " + DELETED + ")";
+
+    private static final String NEAREST_SURVIVING_ANCESTOR = "SELECT c.ancestor_id FROM category_closure c " +
+            "WHERE c.descendant_id = p.category_id AND c.depth > 0 AND c.ancestor_id NOT IN " + DELETED;
+
+    private static final String REASSIGN_PRODUCTS = "UPDATE products p SET category_id = (" +
+            NEAREST_SURVIVING_ANCESTOR + " ORDER BY c.depth, c.ancestor_id FETCH FIRST 1 ROW ONLY), " +
+            "version = version + 1, last_modified = LOCALTIMESTAMP " +
+            "WHERE p.category_id IN " + DELETED + " AND EXISTS (" + NEAREST_SURVIVING_ANCESTOR + ")";
+
+    private static final String AFFECTED_PRODUCTS = "(SELECT id FROM products WHERE category_id IN " + DELETED + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryHierarchyService categoryHierarchyService;
+    private final NameSuggestService nameSuggestService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryDeletionService(JdbcTemplate jdbcTemplate,
+                                   CategoryHierarchyService categoryHierarchyService,
+                                   NameSuggestService nameSuggestService,
+                                   CacheManager cacheManager,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryHierarchyService = categoryHierarchyService;
+        this.nameSuggestService = nameSuggestService;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public CategoryDeletionResult delete(Collection<Long> categoryIds, ProductPolicy productPolicy) {
+        Long[] ids = new LinkedHashSet<>(categoryIds).toArray(new Long[0]);
+        if (ids.length == 0) {
+            throw new BadRequestException("No categories to delete");
+        }
+
+        Integer found = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM categories WHERE id IN " + DELETED, Integer.class, bind(ids, 1));
+        if (found == null || found != ids.length) {
+            throw new NotFoundException();
+        }
+
+        CategoryDeletionResult result = new CategoryDeletionResult(ids.length);
+        List<Long> deletedProductIds = productPolicy == ProductPolicy.DELETE
+                ? deleteProducts(ids, result)
+                : reassignProducts(ids, result);
+
+        jdbcTemplate.update(TOUCH_CHILDREN, bind(ids, 2));
+        jdbcTemplate.update(RELINK_CHILDREN, bind(ids, 5));
+        jdbcTemplate.update("DELETE FROM categories_super_categories WHERE category_id IN " + DELETED, bind(ids, 1));
+        jdbcTemplate.update("DELETE FROM categories_super_categories WHERE super_category_id IN " + DELETED,
+                bind(ids, 1));
+
+        categoryHierarchyService.removeAll(ids);
+        jdbcTemplate.update("DELETE FROM categories WHERE id IN " + DELETED, bind(ids, 1));
+
+        AfterCommit.run(() -> {
+            evictCatalog();
+            for (Long id : ids) {
+                nameSuggestService.categoryDeleted(id);
+            }
+            for (Long id : deletedProductIds) {
+                nameSuggestService.productDeleted(id);
+            }
+        });
+
+        return result;
+    }
+
+    private List<Long> reassignProducts(Long[] ids, CategoryDeletionResult result) {
+        result.setProductsReassigned(jdbcTemplate.update(REASSIGN_PRODUCTS, bind(ids, 3)));
+
+        Integer orphaned = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE category_id IN " + DELETED, Integer.class, bind(ids, 1));
+        if (orphaned != null && orphaned > 0) {
+            throw new BadRequestException(orphaned + " products have no surviving super category to move to");
+        }
+
+        return Collections.emptyList();
+    }
+
+    private List<Long> deleteProducts(Long[] ids, CategoryDeletionResult result) {
+        List<Long> productIds = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE category_id IN " + DELETED, Long.class, bind(ids, 1));
+
+        RowCallbackHandler publishDeleted = rs -> eventPublisher.publishEvent(new PriceChangeEvent(
+                PriceChangeEvent.Type.DELETED,
+                rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getString(4), rs.getBigDecimal(5)));
+        jdbcTemplate.query("SELECT id, product_id, conventional_unit, currency, normalized_amount FROM prices " +
+                "WHERE product_id IN " + AFFECTED_PRODUCTS, publishDeleted, bind(ids, 1));
+
+        result.setPricesDeleted(jdbcTemplate.update(
+                "DELETE FROM prices WHERE product_id IN " + AFFECTED_PRODUCTS, bind(ids, 1)));
+        result.setProductsDeleted(jdbcTemplate.update(
+                "DELETE FROM products WHERE category_id IN " + DELETED, bind(ids, 1)));
+
+        return productIds;
+    }
+
+    private void evictCatalog() {
+        for (String name : new String[]{CacheConfig.CATEGORIES, CacheConfig.CATEGORY_PAGES, CacheConfig.PRODUCTS,
+                CacheConfig.PRODUCT_PAGES, CacheConfig.PRICES, CacheConfig.PRICE_PAGES}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    static Object[] bind(Long[] ids, int times) {
+        Object[] arguments = new Object[times];
+        Arrays.fill(arguments, new SqlParameterValue(Types.ARRAY, ids));
+        return arguments;
+    }
+
+    public enum ProductPolicy {
+        REASSIGN,
+        DELETE;
+
+        public static ProductPolicy parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown product policy " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.springtask.service;
+
+import com.example.springtask.repos.CategoryRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Keeps the category_closure table in sync with the super category links, so that
+ * subtree queries are a single indexed lookup instead of one query per level.
+ */
+@Service
+public class CategoryHierarchyService {
+    private static final String INSERT_CLOSURE =
+            "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)";
+    private static final String INSERT_SELF = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT ?, ?, 0 WHERE NOT EXISTS " +
+            "(SELECT 1 FROM category_closure t WHERE t.ancestor_id = ? AND t.descendant_id = t.ancestor_id)";
+
+    private static final String SUBTREE = "(SELECT t.descendant_id FROM category_closure t WHERE t.ancestor_id = ?)";
+    private static final String OUTSIDE_LINKS = " FROM category_closure s " +
+            "JOIN categories_super_categories l ON l.category_id = s.descendant_id " +
+            "JOIN category_closure i ON i.ancestor_id = s.descendant_id ";
+    private static final String INSERT_EXTERNAL_ANCESTORS =
+            "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT r.ancestor_id, r.descendant_id, MIN(r.depth) FROM (" +
+            "SELECT l.super_category_id AS ancestor_id, i.descendant_id, i.depth + 1 AS depth" + OUTSIDE_LINKS +
+            "WHERE s.ancestor_id = ? AND l.super_category_id NOT IN " + SUBTREE + " " +
+            "UNION ALL " +
+            "SELECT a.ancestor_id, i.descendant_id, i.depth + 1 + a.depth" + OUTSIDE_LINKS +
+            "JOIN category_closure a ON a.descendant_id = l.super_category_id AND a.depth > 0 " +
+            "WHERE s.ancestor_id = ? AND l.super_category_id NOT IN " + SUBTREE + ") r " +
+            "GROUP BY r.ancestor_id, r.descendant_id";
+
+    private static final String DELETE_BELOW_DELETED = "DELETE FROM category_closure c " +
+            "WHERE c.depth > 0 AND c.descendant_id IN (SELECT d.descendant_id FROM category_closure d " +
+            "WHERE d.depth > 0 AND d.ancestor_id IN " + CategoryDeletionService.DELETED + ")";
+    private static final String HAS_NO_ANCESTORS =
+            "NOT EXISTS (SELECT 1 FROM category_closure a WHERE a.descendant_id = %s AND a.depth > 0)";
+    /**
+     * Walks up the links from every linked category that has lost its ancestor rows, through
+     * categories in the same state, and stops at the first category whose rows are intact.
+     */
+    private static final String INSERT_LOST_ANCESTORS =
+            "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+            "WITH RECURSIVE up(descendant_id, ancestor_id, depth) AS (" +
+            "SELECT l.category_id, l.super_category_id, 1 FROM categories_super_categories l " +
+            "WHERE " + String.format(HAS_NO_ANCESTORS, "l.category_id") + " " +
+            "UNION ALL " +
+            "SELECT up.descendant_id, l.super_category_id, up.depth + 1 FROM up " +
+            "JOIN categories_super_categories l ON l.category_id = up.ancestor_id " +
+            "WHERE " + String.format(HAS_NO_ANCESTORS, "up.ancestor_id") + ") " +
+            "SELECT c.ancestor_id, up.descendant_id, MIN(up.depth + c.depth) FROM up " +
+            "JOIN category_closure c ON c.descendant_id = up.ancestor_id " +
+            "GROUP BY c.ancestor_id, up.descendant_id";
+
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CategoryHierarchyService(CategoryRepository categoryRepository, JdbcTemplate jdbcTemplate) {
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Recomputes the ancestors of the category and of everything below it. Paths inside the
+     * subtree do not change when the category is re-linked, so only the rows coming from
+     * outside of it are rewritten: every link from the subtree to an outside super category is
+     * joined with the stored ancestors of that super category and the paths below the link.
+     */
+    @Transactional
+    public void rebuild(Long categoryId) {
+        jdbcTemplate.update(INSERT_SELF, categoryId, categoryId, categoryId);
+        deleteExternalAncestors(categoryId);
+        jdbcTemplate.update(INSERT_EXTERNAL_ANCESTORS, categoryId, categoryId, categoryId, categoryId);
+    }
+
+    /**
+     * Drops every path that starts or ends at a deleted category, together with all ancestor rows
+     * of the categories below one, and recomputes those in one statement from the links, which
+     * must already point the former children at their new super categories.
+     */
+    @Transactional
+    public void removeAll(Long[] categoryIds) {
+        jdbcTemplate.update(DELETE_BELOW_DELETED, CategoryDeletionService.bind(categoryIds, 1));
+        jdbcTemplate.update("DELETE FROM category_closure WHERE ancestor_id IN " + CategoryDeletionService.DELETED,
+                CategoryDeletionService.bind(categoryIds, 1));
+        jdbcTemplate.update("DELETE FROM category_closure WHERE descendant_id IN " + CategoryDeletionService.DELETED,
+                CategoryDeletionService.bind(categoryIds, 1));
+        jdbcTemplate.update(INSERT_LOST_ANCESTORS);
+    }
+
+    @Transactional
+    public void rebuildAll() {
+        jdbcTemplate.update("DELETE FROM category_closure");
+
+        Map<Long, List<Long>> parents = new HashMap<>();
+        for (Object[] link : categoryRepository.findAllSuperCategoryLinks()) {
+            parents.computeIfAbsent((Long) link[0], id -> new ArrayList<>()).add((Long) link[1]);
+        }
+
+        Map<Long, Map<Long, Integer>> memo = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long categoryId : categoryRepository.findAllIds()) {
+            rows.add(new Object[]{categoryId, categoryId, 0});
+            for (Map.Entry<Long, Integer> ancestor : ancestorsFromLinks(categoryId, parents, memo).entrySet()) {
+                rows.add(new Object[]{ancestor.getKey(), categoryId, ancestor.getValue()});
+            }
+        }
+
+        insert(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CLOSURE, rows);
+        }
+    }
+
+    private void deleteExternalAncestors(Long categoryId) {
+        jdbcTemplate.update("DELETE FROM category_closure " +
+                "WHERE descendant_id IN " + SUBTREE + " AND ancestor_id NOT IN " + SUBTREE,
+                categoryId, categoryId);
+    }
+
+    private Map<Long, Integer> ancestorsFromLinks(Long categoryId, Map<Long, List<Long>> parents,
+                                                  Map<Long, Map<Long, Integer>> memo) {
+        Map<Long, Integer> ancestors = memo.get(categoryId);
+        if (ancestors != null) {
+            return ancestors;
+        }
+
+        ancestors = new HashMap<>();
+        memo.put(categoryId, ancestors);
+
+        for (Long parentId : parents.getOrDefault(categoryId, Collections.emptyList())) {
+            ancestors.merge(parentId, 1, Integer::min);
+            for (Map.Entry<Long, Integer> ancestor : ancestorsFromLinks(parentId, parents, memo).entrySet()) {
+                ancestors.merge(ancestor.getKey(), ancestor.getValue() + 1, Integer::min);
+            }
+        }
+
+        return ancestors;
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.example.springtask.service;
+
+import com.example.springtask.config.CacheConfig;
+import com.example.springtask.domain.store.ExchangeRate;
+import com.example.springtask.exceptions.BadRequestException;
+import com.example.springtask.exceptions.NotFoundException;
+import com.example.springtask.repos.ExchangeRateRepository;
+import com.example.springtask.utils.AfterCommit;
+import com.example.springtask.utils.FxRates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the exchange rate table and its in-memory {@link FxRates} snapshot. Prices carry an
+ * amount normalized to the base currency. It is set on every entity write and rewritten in
+ * bulk here when a rate changes, so cross-currency filters and sorting are plain index scans.
+ * The snapshot and the price caches only move once the rate change has committed.
+ */
+@Service
+public class ExchangeRateService {
+    private static final String RENORMALIZE = "UPDATE prices " +
+            "SET normalized_amount = CAST(conventional_unit * CAST(? AS DECIMAL(19, 6)) AS DECIMAL(19, 4)), " +
+            "version = version + 1, last_modified = LOCALTIMESTAMP " +
+            "WHERE currency = ?";
+
+    private static final String CLEAR = "UPDATE prices " +
+            "SET normalized_amount = NULL, version = version + 1, last_modified = LOCALTIMESTAMP";
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final String baseCurrency;
+
+    private final AtomicReference<FxRates> rates = new AtomicReference<>();
+
+    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository,
+                               JdbcTemplate jdbcTemplate,
+                               CacheManager cacheManager,
+                               @Value("${store.fx.base-currency}") String baseCurrency) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.baseCurrency = baseCurrency;
+        this.rates.set(new FxRates(baseCurrency, new HashMap<>()));
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<String, BigDecimal> stored = new HashMap<>();
+        for (ExchangeRate rate : exchangeRateRepository.findAll()) {
+            stored.put(rate.getCurrency(), rate.getRate());
+        }
+        rates.set(new FxRates(baseCurrency, stored));
+    }
+
+    public FxRates getRates() {
+        return rates.get();
+    }
+
+    @Transactional
+    public FxRates setRate(String currency, BigDecimal rate) {
+        checkNotBase(currency);
+        if (rate == null || rate.signum() <= 0) {
+            throw new BadRequestException("Rate must be positive");
+        }
+
+        rate = rate.setScale(6, RoundingMode.HALF_UP);
+        exchangeRateRepository.save(new ExchangeRate(currency, rate));
+        return publish(currency, rate);
+    }
+
+    @Transactional
+    public FxRates removeRate(String currency) {
+        checkNotBase(currency);
+        if (!exchangeRateRepository.existsById(currency)) {
+            throw new NotFoundException();
+        }
+
+        exchangeRateRepository.deleteById(currency);
+        return publish(currency, null);
+    }
+
+    /**
+     * Recomputes every normalized amount from the current snapshot, for rows written around the entity layer.
+     */
+    @Transactional
+    public void renormalizeAll() {
+        jdbcTemplate.update(CLEAR);
+        for (Map.Entry<String, BigDecimal> rate : rates.get().getRates().entrySet()) {
+            jdbcTemplate.update(RENORMALIZE, rate.getValue(), rate.getKey());
+        }
+        AfterCommit.run(this::evictPrices);
+    }
+
+    /**
+     * Rewrites the normalized amounts inside the transaction; the snapshot swap and cache eviction wait for the commit.
+     * The swap applies this one currency to whatever snapshot is current then, so concurrent changes to other
+     * currencies are not lost.
+     */
+    private FxRates publish(String currency, BigDecimal rate) {
+        if (rate == null) {
+            jdbcTemplate.update(CLEAR + " WHERE currency = ?", currency);
+        } else {
+            jdbcTemplate.update(RENORMALIZE, rate, currency);
+        }
+
+        AfterCommit.run(() -> {
+            rates.updateAndGet(current -> current.with(currency, rate));
+            evictPrices();
+        });
+
+        return rates.get().with(currency, rate);
+    }
+
+    private void checkNotBase(String currency) {
+        if (baseCurrency.equals(currency)) {
+            throw new BadRequestException("The rate of the base currency " + baseCurrency + " is fixed");
+        }
+    }
+
+    private void evictPrices() {
+        for (String name : new String[]{CacheConfig.PRICES, CacheConfig.PRICE_PAGES}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
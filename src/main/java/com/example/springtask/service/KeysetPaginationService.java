@@ -0,0 +1,143 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.exceptions.BadRequestException;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cursor based listing: instead of OFFSET the next page starts right after the
+ * (sort key, id) of the last returned row, and no count query is issued.
+ * A cursor is only valid for the sort key it was produced with.
+ */
+@Service
+public class KeysetPaginationService {
+    private static final String SEPARATOR = "\n";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    @Transactional(readOnly = true)
+    public <T> CursorPage<T> findPage(Class<T> type, String sortBy, String after, int limit) {
+        return findPage(type, sortBy, after, limit, null);
+    }
+
+    /**
+     * Same as {@link #findPage(Class, String, String, int)}, loading the rows with the named entity graph.
+     */
+    @Transactional(readOnly = true)
+    public <T> CursorPage<T> findPage(Class<T> type, String sortBy, String after, int limit, String entityGraph) {
+        checkSortAttribute(type, sortBy);
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<T> root = query.from(type);
+        Path<?> sortKey = root.get(sortBy);
+        Path<Long> id = root.get("id");
+
+        if (after != null && !after.isEmpty()) {
+            Cursor cursor = decode(after, sortBy, sortKey.getJavaType());
+            query.where("id".equals(sortBy)
+                    ? builder.greaterThan(id, cursor.id)
+                    : seek(builder, sortKey, id, cursor));
+        }
+        query.orderBy(builder.asc(sortKey), builder.asc(id));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query).setMaxResults(limit + 1);
+        if (entityGraph != null) {
+            typedQuery.setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(entityGraph));
+        }
+        List<T> rows = typedQuery.getResultList();
+
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            next = encode(rows.get(limit - 1), sortBy);
+        }
+
+        return new CursorPage<>(rows, next);
+    }
+
+    private void checkSortAttribute(Class<?> type, String sortBy) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(type);
+        try {
+            Attribute<?, ?> attribute = entityType.getAttribute(sortBy);
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                throw new BadRequestException("Cannot sort by " + sortBy);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown sort key " + sortBy);
+        }
+    }
+
+    /**
+     * Rows strictly after the cursor in (sortKey, id) order. H2 sorts NULL sort keys first.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seek(CriteriaBuilder builder, Path sortKey, Path<Long> id, Cursor cursor) {
+        if (cursor.value == null) {
+            return builder.or(
+                    builder.and(builder.isNull(sortKey), builder.greaterThan(id, cursor.id)),
+                    builder.isNotNull(sortKey));
+        }
+
+        return builder.or(
+                builder.greaterThan(sortKey, (Comparable) cursor.value),
+                builder.and(builder.equal(sortKey, cursor.value), builder.greaterThan(id, cursor.id)));
+    }
+
+    private String encode(Object row, String sortBy) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Object value = wrapper.getPropertyValue(sortBy);
+
+        String cursor = sortBy + SEPARATOR + wrapper.getPropertyValue("id");
+        if (value != null) {
+            cursor += SEPARATOR + conversionService.convert(value, String.class);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String after, String sortBy, Class<?> valueType) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 3);
+            if (parts.length < 2 || !parts[0].equals(sortBy)) {
+                throw new BadRequestException("Cursor does not match sort key " + sortBy);
+            }
+
+            Object value = parts.length == 3 ? conversionService.convert(parts[2], valueType) : null;
+            return new Cursor(Long.parseLong(parts[1]), value);
+        } catch (IllegalArgumentException | ConversionException e) {
+            throw new BadRequestException("Malformed cursor");
+        }
+    }
+
+    private static class Cursor {
+        private final Long id;
+        private final Object value;
+
+        private Cursor(Long id, Object value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.NameSuggestion;
+import com.example.springtask.utils.NameIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Autocomplete over product and category names. Both indexes are loaded once the application
+ * is ready and then kept current by the write handlers, so lookups never reach the database.
+ * With {@code store.suggest.async-load} the load runs in the background, so startup does not
+ * wait for a large catalog; suggestions are incomplete until it finishes.
+ */
+@Service
+public class NameSuggestService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NameSuggestService.class);
+
+    private final NameIndex productIndex = new NameIndex();
+    private final NameIndex categoryIndex = new NameIndex();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean asyncLoad;
+
+    public NameSuggestService(JdbcTemplate jdbcTemplate,
+                              @Value("${store.suggest.async-load}") boolean asyncLoad) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.asyncLoad = asyncLoad;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!asyncLoad) {
+            rebuild();
+            return;
+        }
+
+        Thread loader = new Thread(this::rebuild, "name-index-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public void rebuild() {
+        load(productIndex, "SELECT id, name FROM products WHERE name IS NOT NULL");
+        load(categoryIndex, "SELECT id, name FROM categories WHERE name IS NOT NULL");
+
+        LOGGER.info("INDEXED {} PRODUCT AND {} CATEGORY NAMES", productIndex.size(), categoryIndex.size());
+    }
+
+    public List<NameSuggestion> suggestProducts(String query, int limit) {
+        return suggest(productIndex, query, limit);
+    }
+
+    public List<NameSuggestion> suggestCategories(String query, int limit) {
+        return suggest(categoryIndex, query, limit);
+    }
+
+    public void productSaved(Long id, String name) {
+        productIndex.put(id, name);
+    }
+
+    public void productDeleted(Long id) {
+        productIndex.remove(id);
+    }
+
+    public void categorySaved(Long id, String name) {
+        categoryIndex.put(id, name);
+    }
+
+    public void categoryDeleted(Long id) {
+        categoryIndex.remove(id);
+    }
+
+    private List<NameSuggestion> suggest(NameIndex index, String query, int limit) {
+        List<NameSuggestion> suggestions = new ArrayList<>();
+        if (query == null || query.trim().isEmpty()) {
+            return suggestions;
+        }
+
+        for (NameIndex.Match match : index.search(query, limit)) {
+            suggestions.add(new NameSuggestion(match.getId(), match.getName()));
+        }
+
+        return suggestions;
+    }
+
+    /**
+     * Holds the index lock while reading, so a write that lands during the load is applied
+     * on top of the new snapshot instead of being overwritten by it.
+     */
+    private void load(NameIndex index, String sql) {
+        synchronized (index) {
+            NameIndex.Builder builder = new NameIndex.Builder();
+            RowCallbackHandler handler = rs -> builder.add(rs.getLong(1), rs.getString(2));
+            jdbcTemplate.query(sql, handler);
+            index.reset(builder.build());
+        }
+    }
+}
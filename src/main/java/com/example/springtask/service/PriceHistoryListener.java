@@ -0,0 +1,25 @@
+package com.example.springtask.service;
+
+import com.example.springtask.domain.store.Price;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener that appends every inserted price and every changed amount to the history log.
+ * Bulk upserts bypass the entity and record their rows through PriceHistoryService directly.
+ */
+public class PriceHistoryListener {
+    private final ObjectProvider<PriceHistoryService> priceHistoryService;
+
+    public PriceHistoryListener(ObjectProvider<PriceHistoryService> priceHistoryService) {
+        this.priceHistoryService = priceHistoryService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void record(Price price) {
+        priceHistoryService.getObject().record(price.getId(), price.getConventionalUnit());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.PriceHistoryBucket;
+import com.example.springtask.exceptions.BadRequestException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes and reads the price_history log. A history query is one range scan over the
+ * (price_id, changed_at) index, grouped into buckets by the database, so only one row per
+ * bucket comes back no matter how many changes it holds.
+ */
+@Service
+public class PriceHistoryService {
+    private static final int MAX_BUCKETS = 10000;
+
+    private static final String LAST_HISTORY_VALUE = "SELECT h.conventional_unit FROM price_history h " +
+            "WHERE h.price_id = %s ORDER BY h.changed_at DESC FETCH FIRST ROW ONLY";
+
+    private static final String INSERT_HISTORY = "INSERT INTO price_history " +
+            "(price_id, changed_at, conventional_unit) " +
+            "SELECT ?, ?, ? WHERE CAST(? AS INT) IS DISTINCT FROM (" + String.format(LAST_HISTORY_VALUE, "?") + ")";
+
+    private static final String INSERT_MERGED_HISTORY = "INSERT INTO price_history " +
+            "(price_id, changed_at, conventional_unit) " +
+            "SELECT p.id, ?, p.conventional_unit FROM prices p " +
+            "WHERE p.product_id = ? AND p.currency = ? AND p.conventional_unit IS DISTINCT FROM (" +
+            String.format(LAST_HISTORY_VALUE, "p.id") + ")";
+
+    private static final String SELECT_BUCKETS = "SELECT b.bucket, MIN(b.conventional_unit), " +
+            "MAX(b.conventional_unit), MAX(b.last_unit), COUNT(*) FROM (" +
+            "SELECT DATE_TRUNC(%1$s, changed_at AT TIME ZONE 'UTC') AS bucket, conventional_unit, " +
+            "LAST_VALUE(conventional_unit) OVER (PARTITION BY DATE_TRUNC(%1$s, changed_at AT TIME ZONE 'UTC') " +
+            "ORDER BY changed_at, id ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS last_unit " +
+            "FROM price_history WHERE price_id = ? AND changed_at >= ? AND changed_at < ?) b " +
+            "GROUP BY b.bucket ORDER BY b.bucket";
+
+    public enum Bucket {
+        MINUTE("MINUTE"),
+        HOUR("HOUR"),
+        DAY("DAY"),
+        WEEK("ISO_WEEK"),
+        MONTH("MONTH");
+
+        private final String field;
+
+        Bucket(String field) {
+            this.field = field;
+        }
+
+        public static Bucket parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown bucket " + value);
+            }
+        }
+
+        private long maxLength() {
+            switch (this) {
+                case MINUTE:
+                    return ChronoUnit.MINUTES.getDuration().getSeconds();
+                case HOUR:
+                    return ChronoUnit.HOURS.getDuration().getSeconds();
+                case DAY:
+                    return ChronoUnit.DAYS.getDuration().getSeconds();
+                case WEEK:
+                    return ChronoUnit.WEEKS.getDuration().getSeconds();
+                default:
+                    return 28 * ChronoUnit.DAYS.getDuration().getSeconds();
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceHistoryService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends one change unless the value equals the last history entry, the same check the upsert applies,
+     * so saving an entity without touching its amount leaves no entry. Joins the caller's transaction, so the
+     * entry commits with the price.
+     */
+    public void record(Long priceId, int conventionalUnit) {
+        jdbcTemplate.update(INSERT_HISTORY, priceId, Timestamp.from(Instant.now()), conventionalUnit,
+                conventionalUnit, priceId);
+    }
+
+    /**
+     * Appends the current value of each upserted (productId, currency, conventionalUnit) row whose
+     * value differs from its last history entry.
+     */
+    public void recordMerged(List<Object[]> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+
+        List<Object[]> arguments = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            arguments.add(new Object[]{now, row[0], row[1]});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_MERGED_HISTORY, arguments);
+    }
+
+    /**
+     * Min, max and last value per UTC bucket for changes in [from, to).
+     */
+    @Transactional(readOnly = true)
+    public List<PriceHistoryBucket> findHistory(Long priceId, Instant from, Instant to, Bucket bucket) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        if ((to.getEpochSecond() - from.getEpochSecond()) / bucket.maxLength() > MAX_BUCKETS) {
+            throw new BadRequestException("Range spans more than " + MAX_BUCKETS + " buckets");
+        }
+
+        return jdbcTemplate.query(String.format(SELECT_BUCKETS, bucket.field),
+                (rs, rowNum) -> new PriceHistoryBucket(rs.getObject(1, OffsetDateTime.class).toInstant(),
+                        rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getLong(5)),
+                priceId, Timestamp.from(from), Timestamp.from(to));
+    }
+}
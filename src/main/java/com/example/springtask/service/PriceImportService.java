@@ -0,0 +1,246 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.PriceImportResult;
+import com.example.springtask.repos.PriceRepository;
+import com.example.springtask.repos.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Imports supplier price lists as a stream of NDJSON or CSV rows. Rows are processed in
+ * fixed-size chunks, one transaction per chunk, so memory use does not grow with the file.
+ * Each chunk is written as one batch of (product, currency) upserts.
+ */
+@Service
+public class PriceImportService {
+    private static final int CHUNK_SIZE = 1000;
+    private static final List<String> CSV_HEADER = Arrays.asList("product", "conventionalUnit", "currency");
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final ProductRepository productRepository;
+    private final PriceRepository priceRepository;
+    private final PriceUpsertService priceUpsertService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public PriceImportService(ProductRepository productRepository,
+                              PriceRepository priceRepository,
+                              PriceUpsertService priceUpsertService,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.priceRepository = priceRepository;
+        this.priceUpsertService = priceUpsertService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public PriceImportResult importPrices(InputStream inputStream, Format format) throws IOException {
+        PriceImportResult result = new PriceImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+
+            try {
+                chunk.add(format == Format.CSV ? parseCsv(line, lineNumber) : parseJson(line, lineNumber));
+            } catch (IOException | RuntimeException e) {
+                result.addError(lineNumber, e.getMessage());
+            }
+
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        return result;
+    }
+
+    private void importChunk(List<Row> rows, PriceImportResult result) {
+        ChunkOutcome outcome;
+        try {
+            outcome = priceUpsertService.retryOnConflict(() -> transactionTemplate.execute(status -> upsert(rows)));
+        } catch (DataAccessException e) {
+            for (Row row : rows) {
+                result.addError(row.line, e.getMostSpecificCause().getMessage());
+            }
+            return;
+        }
+
+        priceUpsertService.evictPrices();
+        result.addCreated(outcome.created);
+        result.addUpdated(outcome.updated);
+        for (Row row : outcome.unknownProducts) {
+            result.addError(row.line, "Unknown product: " + row.product);
+        }
+    }
+
+    private ChunkOutcome upsert(List<Row> rows) {
+        ChunkOutcome outcome = new ChunkOutcome();
+
+        Set<String> names = new HashSet<>();
+        for (Row row : rows) {
+            names.add(row.product);
+        }
+
+        Map<String, Long> productIds = new HashMap<>();
+        for (Object[] product : productRepository.findIdsByNameIn(names)) {
+            productIds.putIfAbsent((String) product[1], (Long) product[0]);
+        }
+
+        Map<String, Row> latestRows = new LinkedHashMap<>();
+        for (Row row : rows) {
+            row.productId = productIds.get(row.product);
+            if (row.productId == null) {
+                outcome.unknownProducts.add(row);
+            } else {
+                latestRows.put(key(row.productId, row.currency), row);
+            }
+        }
+
+        if (latestRows.isEmpty()) {
+            return outcome;
+        }
+
+        Map<String, Long> existingPrices = new HashMap<>();
+        for (Object[] price : priceRepository.findKeysByProductIdIn(new HashSet<>(productIds.values()))) {
+            existingPrices.put(key((Long) price[1], (String) price[2]), (Long) price[0]);
+        }
+
+        List<Object[]> merges = new ArrayList<>(latestRows.size());
+        for (Map.Entry<String, Row> entry : latestRows.entrySet()) {
+            Row row = entry.getValue();
+            if (existingPrices.containsKey(entry.getKey())) {
+                outcome.updated++;
+            } else {
+                outcome.created++;
+            }
+            merges.add(new Object[]{row.productId, row.currency, row.conventionalUnit});
+        }
+
+        priceUpsertService.merge(merges);
+
+        return outcome;
+    }
+
+    private Row parseJson(String line, long lineNumber) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        JsonNode conventionalUnit = node.path("conventionalUnit");
+        if (!conventionalUnit.canConvertToInt()) {
+            throw new IllegalArgumentException("conventionalUnit must be an integer");
+        }
+
+        return new Row(lineNumber, node.path("product").asText(null), conventionalUnit.asInt(),
+                node.path("currency").asText(null));
+    }
+
+    /**
+     * The header is optional, so only a first line whose cells are exactly the column names is
+     * skipped; a product that happens to be called "product" is still imported.
+     */
+    private boolean isCsvHeader(String line) {
+        List<String> cells = splitCsv(line);
+        if (cells.size() != CSV_HEADER.size()) {
+            return false;
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            if (!cells.get(i).trim().equalsIgnoreCase(CSV_HEADER.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Row parseCsv(String line, long lineNumber) {
+        List<String> cells = splitCsv(line);
+        if (cells.size() != 3) {
+            throw new IllegalArgumentException("Expected 3 columns: product,conventionalUnit,currency");
+        }
+
+        return new Row(lineNumber, cells.get(0), Integer.parseInt(cells.get(1).trim()), cells.get(2).trim());
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>(3);
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+
+        return cells;
+    }
+
+    private static String key(Long productId, String currency) {
+        return productId + ":" + currency;
+    }
+
+    private static class Row {
+        private final long line;
+        private final String product;
+        private final int conventionalUnit;
+        private final String currency;
+        private Long productId;
+
+        private Row(long line, String product, int conventionalUnit, String currency) {
+            if (product == null || product.isEmpty()) {
+                throw new IllegalArgumentException("product is required");
+            }
+            if (currency == null || currency.isEmpty()) {
+                throw new IllegalArgumentException("currency is required");
+            }
+
+            this.line = line;
+            this.product = product;
+            this.conventionalUnit = conventionalUnit;
+            this.currency = currency;
+        }
+    }
+
+    private static class ChunkOutcome {
+        private long created;
+        private long updated;
+        private final List<Row> unknownProducts = new ArrayList<>();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.springtask.service;
+
+import com.example.springtask.domain.store.Price;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * JPA listener that keeps {@link Price#getNormalizedAmount()} in step with the amount and currency.
+ * Hibernate creates it through Spring while the entity manager factory is being built, so the
+ * rate service is looked up on first use instead of at construction.
+ */
+public class PriceNormalizationListener {
+    private final ObjectProvider<ExchangeRateService> exchangeRateService;
+
+    public PriceNormalizationListener(ObjectProvider<ExchangeRateService> exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void normalize(Price price) {
+        price.setNormalizedAmount(exchangeRateService.getObject().getRates()
+                .normalize(price.getConventionalUnit(), price.getCurrency()));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.springtask.service;
+
+import com.example.springtask.dto.PriceChangeEvent;
+import com.example.springtask.exceptions.ServiceUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed price changes out to server-sent event subscribers.
+ * <p>
+ * Publishing never touches a connection. It only records the change in each subscriber's
+ * pending map, keyed by price id, so repeated changes of one price collapse into the latest.
+ * A subscriber with pending changes gets one drain task on a small dispatch pool. The stream is
+ * written in servlet non-blocking mode: a drain writes only while the connection is ready and
+ * otherwise leaves the rest pending until the container reports it writable again, so a client
+ * that stops reading never holds a dispatch thread. A subscriber that falls more than the buffer
+ * size of distinct prices behind, or stays unwritable for longer than the write timeout, is
+ * disconnected and has to reconnect and re-read the prices it cares about.
+ */
+@Service
+public class PriceStreamService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceStreamService.class);
+
+    private static final byte[] SUBSCRIBED = ":subscribed\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long writeTimeoutMillis;
+    private final long asyncTimeoutMillis;
+
+    public PriceStreamService(ObjectMapper objectMapper,
+                              @Value("${store.stream.dispatch-threads}") int dispatchThreads,
+                              @Value("${store.stream.buffer-size}") int bufferSize,
+                              @Value("${store.stream.max-subscribers}") int maxSubscribers,
+                              @Value("${store.stream.write-timeout-ms}") long writeTimeoutMillis,
+                              @Value("${spring.mvc.async.request-timeout}") Duration asyncTimeout) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "price-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.asyncTimeoutMillis = asyncTimeout.toMillis();
+
+        long sweepMillis = Math.max(1, writeTimeoutMillis / 2);
+        dispatcher.scheduleWithFixedDelay(this::dropStalled, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Turns the request into an event stream. The response is written outside of Spring MVC, from the dispatch pool.
+     */
+    public void subscribe(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many price stream subscribers");
+        }
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(asyncTimeoutMillis);
+
+        ServletOutputStream out = response.getOutputStream();
+        Subscriber subscriber = new Subscriber(context, out);
+        context.addListener(subscriber);
+        subscribers.add(subscriber);
+
+        out.write(SUBSCRIBED);
+        out.flush();
+        out.setWriteListener(subscriber);
+    }
+
+    /**
+     * Runs after the publishing transaction commits, or right away when there is none.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(PriceChangeEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        dispatcher.shutdownNow();
+    }
+
+    private void dropStalled() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.stalled(now)) {
+                LOGGER.warn("DISCONNECTING STALLED PRICE STREAM SUBSCRIBER");
+                subscriber.close();
+            }
+        }
+    }
+
+    private class Subscriber implements WriteListener, AsyncListener {
+        private final AsyncContext context;
+        private final ServletOutputStream out;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private Map<Long, PriceChangeEvent> pending = new LinkedHashMap<>();
+        private volatile boolean started;
+        private volatile long blockedSince;
+
+        private Subscriber(AsyncContext context, ServletOutputStream out) {
+            this.context = context;
+            this.out = out;
+        }
+
+        private void offer(PriceChangeEvent event) {
+            boolean overflow;
+            synchronized (this) {
+                pending.put(event.getPriceId(), event);
+                overflow = pending.size() > bufferSize;
+            }
+
+            if (overflow) {
+                LOGGER.warn("DISCONNECTING SLOW PRICE STREAM SUBSCRIBER");
+                close();
+            } else {
+                schedule();
+            }
+        }
+
+        private boolean stalled(long now) {
+            long since = blockedSince;
+            return since != 0 && now - since > writeTimeoutMillis;
+        }
+
+        private void schedule() {
+            // Until the container's first onWritePossible the request thread may still own the response
+            if (started && scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Map<Long, PriceChangeEvent> batch;
+                synchronized (this) {
+                    batch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+
+                Iterator<PriceChangeEvent> events = batch.values().iterator();
+                boolean flushed = false;
+                try {
+                    while (events.hasNext() && out.isReady()) {
+                        out.write(frame(events.next()));
+                    }
+                    if (!events.hasNext() && out.isReady()) {
+                        out.flush();
+                        flushed = true;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                }
+
+                if (flushed) {
+                    blockedSince = 0;
+                    synchronized (this) {
+                        if (pending.isEmpty()) {
+                            scheduled.set(false);
+                            return;
+                        }
+                    }
+                    continue;
+                }
+
+                requeue(events);
+                if (blockedSince == 0) {
+                    blockedSince = System.currentTimeMillis();
+                }
+                scheduled.set(false);
+                // onWritePossible may have fired before the flag was cleared; if so, keep draining here
+                if (!out.isReady() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                blockedSince = 0;
+            }
+        }
+
+        private synchronized void requeue(Iterator<PriceChangeEvent> unsent) {
+            Map<Long, PriceChangeEvent> requeued = new LinkedHashMap<>();
+            while (unsent.hasNext()) {
+                PriceChangeEvent event = unsent.next();
+                requeued.put(event.getPriceId(), event);
+            }
+            requeued.putAll(pending);
+            pending = requeued;
+        }
+
+        private byte[] frame(PriceChangeEvent event) throws IOException {
+            return ("id:" + event.getPriceId() + "\nevent:price\ndata:"
+                    + objectMapper.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void close() {
+            if (subscribers.remove(this)) {
+                try {
+                    context.complete();
+                } catch (IllegalStateException e) {
+                    LOGGER.debug("PRICE STREAM ALREADY COMPLETED");
+                }
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            started = true;
+            blockedSince = 0;
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            subscribers.remove(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.springtask.service;
+
+import com.example.springtask.config.CacheConfig;
+import com.example.springtask.domain.store.Price;
+import com.example.springtask.repos.PriceRepository;
+import com.example.springtask.utils.FxRates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Create-or-update of prices keyed on (product, currency) as one MERGE statement, so writers
+ * do not read before they write. Two writers inserting the same new key at once still collide
+ * on the unique key; the loser is retried and then takes the update branch.
+ */
+@Service
+public class PriceUpsertService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceUpsertService.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String MERGE = "MERGE INTO prices p USING (SELECT " +
+            "CAST(? AS BIGINT) AS product_id, " +
+            "CAST(? AS VARCHAR(255)) AS currency, " +
+            "CAST(? AS INT) AS conventional_unit, " +
+            "CAST(? AS DECIMAL(19, 4)) AS normalized_amount) s " +
+            "ON p.product_id = s.product_id AND p.currency = s.currency " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "conventional_unit = s.conventional_unit, normalized_amount = s.normalized_amount, " +
+            "version = p.version + 1, last_modified = LOCALTIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "(id, product_id, currency, conventional_unit, normalized_amount, version, last_modified) " +
+            "VALUES (NEXT VALUE FOR prices_seq, s.product_id, s.currency, s.conventional_unit, s.normalized_amount, " +
+            "0, LOCALTIMESTAMP)";
+
+    private final PriceRepository priceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExchangeRateService exchangeRateService;
+    private final PriceHistoryService priceHistoryService;
+    private final CacheManager cacheManager;
+
+    public PriceUpsertService(PriceRepository priceRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ExchangeRateService exchangeRateService,
+                              PriceHistoryService priceHistoryService,
+                              CacheManager cacheManager) {
+        this.priceRepository = priceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.exchangeRateService = exchangeRateService;
+        this.priceHistoryService = priceHistoryService;
+        this.cacheManager = cacheManager;
+    }
+
+    public Price upsert(Long productId, int conventionalUnit, String currency) {
+        Price price = retryOnConflict(() -> transactionTemplate.execute(status -> {
+            merge(Collections.singletonList(new Object[]{productId, currency, conventionalUnit}));
+            return priceRepository.findFirstByProductIdAndCurrency(productId, currency)
+                    .orElseThrow(IllegalStateException::new);
+        }));
+        evictPrices();
+
+        return price;
+    }
+
+    /**
+     * Upserts (productId, currency, conventionalUnit) rows in one batch and appends the changed values
+     * to the price history. Runs in the caller's transaction.
+     */
+    public void merge(List<Object[]> rows) {
+        FxRates rates = exchangeRateService.getRates();
+
+        List<Object[]> arguments = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            String currency = (String) row[1];
+            int conventionalUnit = (Integer) row[2];
+            arguments.add(new Object[]{row[0], currency, conventionalUnit, rates.normalize(conventionalUnit, currency)});
+        }
+
+        jdbcTemplate.batchUpdate(MERGE, arguments);
+        priceHistoryService.recordMerged(rows);
+    }
+
+    /**
+     * Repeats a whole transaction that lost an insert race on the (product, currency) key.
+     */
+    public <T> T retryOnConflict(Supplier<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.debug("PRICE UPSERT CONFLICT, RETRY {} OF {}", attempt, MAX_ATTEMPTS - 1);
+            }
+        }
+    }
+
+    public void evictPrices() {
+        for (String name : new String[]{CacheConfig.PRICES, CacheConfig.PRICE_PAGES}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.springtask.service;
+
+import com.example.springtask.domain.store.Product;
+import com.example.springtask.dto.ProductSearchResult;
+import com.example.springtask.exceptions.BadRequestException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Filters products by category and name, and by their prices: a product matches when at least one
+ * of its prices passes the price and currency filters. With a currency, prices are compared in
+ * that currency; without one, they are compared by their amount normalized to the base currency.
+ * <p>
+ * The result takes three indexed queries rather than one: the page on products, the total and the
+ * category facets from a GROUP BY over the same predicate, and the price buckets from a GROUP BY
+ * over the matching prices that counts each product once per bucket. A product can fall into
+ * several buckets, so the buckets cannot be folded into the same grouping as the categories.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductSearchService {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CatalogQueryService catalogQueryService;
+
+    public ProductSearchService(CatalogQueryService catalogQueryService) {
+        this.catalogQueryService = catalogQueryService;
+    }
+
+    public ProductSearchResult search(Long categoryId, boolean deep, Integer minPrice, Integer maxPrice,
+                                      String currency, String namePrefix, int bucketSize, int page, int size) {
+        if (bucketSize < 1) {
+            throw new BadRequestException("bucketSize must be positive");
+        }
+
+        List<String> productConditions = new ArrayList<>();
+        List<String> priceConditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (categoryId != null) {
+            productConditions.add(deep
+                    ? "p.category.id in (select cc.id.descendantId from CategoryClosure cc where cc.id.ancestorId = :categoryId)"
+                    : "p.category.id = :categoryId");
+            parameters.put("categoryId", categoryId);
+        }
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            productConditions.add("p.name like :namePrefix escape '\\'");
+            parameters.put("namePrefix", escapeLike(namePrefix) + "%");
+        }
+        boolean byCurrency = currency != null && !currency.isEmpty();
+        String amount = byCurrency ? "pr.conventionalUnit" : "pr.normalizedAmount";
+        if (minPrice != null) {
+            priceConditions.add(amount + " >= :minPrice");
+            parameters.put("minPrice", byCurrency ? (Object) minPrice : BigDecimal.valueOf(minPrice));
+        }
+        if (maxPrice != null) {
+            priceConditions.add(amount + " <= :maxPrice");
+            parameters.put("maxPrice", byCurrency ? (Object) maxPrice : BigDecimal.valueOf(maxPrice));
+        }
+        if (byCurrency) {
+            priceConditions.add("pr.currency = :currency");
+            parameters.put("currency", currency);
+        }
+
+        List<String> conditions = new ArrayList<>(productConditions);
+        if (!priceConditions.isEmpty()) {
+            conditions.add("exists (select pr.id from Price pr where pr.product = p and " +
+                    String.join(" and ", priceConditions) + ")");
+        }
+        String where = where(conditions);
+
+        List<Product> products = bind(entityManager.createQuery(
+                "select p from Product p left join fetch p.category" + where + " order by p.name, p.id",
+                Product.class), parameters)
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+
+        List<?> categoryRows = bind(entityManager.createQuery(
+                "select c.id, c.name, count(p) from Product p left join p.category c" + where +
+                        " group by c.id, c.name"), parameters)
+                .getResultList();
+
+        long total = 0;
+        List<ProductSearchResult.CategoryFacet> categories = new ArrayList<>(categoryRows.size());
+        for (Object row : categoryRows) {
+            Object[] columns = (Object[]) row;
+            long count = ((Number) columns[2]).longValue();
+            categories.add(new ProductSearchResult.CategoryFacet((Long) columns[0], (String) columns[1], count));
+            total += count;
+        }
+        categories.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        List<String> bucketConditions = new ArrayList<>(productConditions);
+        bucketConditions.addAll(priceConditions);
+        bucketConditions.add(amount + " is not null");
+        String bucket = "floor(1.0 * " + amount + " / " + bucketSize + ")";
+        List<?> bucketRows = bind(entityManager.createQuery(
+                "select " + bucket + ", count(distinct p.id) from Price pr join pr.product p" +
+                        where(bucketConditions) + " group by " + bucket + " order by " + bucket), parameters)
+                .getResultList();
+
+        List<ProductSearchResult.PriceBucket> priceBuckets = new ArrayList<>(bucketRows.size());
+        for (Object row : bucketRows) {
+            Object[] columns = (Object[]) row;
+            int from = ((Number) columns[0]).intValue() * bucketSize;
+            priceBuckets.add(new ProductSearchResult.PriceBucket(from, from + bucketSize,
+                    ((Number) columns[1]).longValue()));
+        }
+
+        return new ProductSearchResult(catalogQueryService.toProductViews(products), total, categories, priceBuckets);
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private static <Q extends Query> Q bind(Q query, Map<String, Object> parameters) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+
+        return query;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.springtask.utils;
+
+import com.example.springtask.dto.CategoryView;
+import com.example.springtask.dto.CursorPage;
+import com.example.springtask.dto.PriceView;
+import com.example.springtask.dto.ProductView;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Weak entity tag computed from the (type, id, version) of the returned views instead of the
+ * serialized body. Embedded views are hashed too, so renaming a category changes the tag of every
+ * product and price that shows it. Spring answers {@code 304} for a matching {@code If-None-Match}
+ * or {@code If-Modified-Since} before the body is written. The tag is the same for every encoding
+ * of a body, so responses vary by {@code Accept}.
+ */
+public class ETags {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int CATEGORY = 1;
+    private static final int PRODUCT = 2;
+    private static final int PRICE = 3;
+
+    private final Set<Long> categories = new HashSet<>();
+    private long hash = FNV_OFFSET;
+    private Instant lastModified;
+    private boolean withLastModified;
+
+    public ETags page(Page<?> page) {
+        part(page.getNumber());
+        part(page.getSize());
+        part(page.getTotalElements());
+        part(page.getSort().toString());
+        return views(page.getContent());
+    }
+
+    public ETags cursor(CursorPage<?> page) {
+        part(page.getNext() == null ? "" : page.getNext());
+        return views(page.getContent());
+    }
+
+    public ETags views(Collection<?> views) {
+        part(views.size());
+        for (Object view : views) {
+            if (view instanceof PriceView) {
+                price((PriceView) view);
+            } else if (view instanceof ProductView) {
+                product((ProductView) view);
+            } else if (view instanceof CategoryView) {
+                category((CategoryView) view);
+            } else {
+                throw new IllegalArgumentException("Not a catalog view: " + view);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Also sends {@code Last-Modified}. Only meaningful for a fixed set of rows: a list that lost a
+     * row to a delete keeps the same maximum.
+     */
+    public ETags withLastModified() {
+        withLastModified = true;
+        return this;
+    }
+
+    public String tag() {
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public <T> ResponseEntity<T> ok(T body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(tag()).varyBy(HttpHeaders.ACCEPT);
+        if (withLastModified && lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(body);
+    }
+
+    private void price(PriceView price) {
+        entity(PRICE, price.getId(), price.getVersion(), price.getLastModified());
+        if (price.getProduct() != null) {
+            product(price.getProduct());
+        }
+    }
+
+    private void product(ProductView product) {
+        entity(PRODUCT, product.getId(), product.getVersion(), product.getLastModified());
+        if (product.getCategory() != null) {
+            category(product.getCategory());
+        }
+    }
+
+    private void category(CategoryView category) {
+        entity(CATEGORY, category.getId(), category.getVersion(), category.getLastModified());
+        if (categories.add(category.getId())) {
+            part(category.getSuperCategories().size());
+            for (CategoryView superCategory : category.getSuperCategories()) {
+                category(superCategory);
+            }
+        }
+    }
+
+    private void entity(int type, Long id, long version, Instant modified) {
+        part(type);
+        part(id == null ? 0 : id);
+        part(version);
+        if (modified != null && (lastModified == null || modified.isAfter(lastModified))) {
+            lastModified = modified;
+        }
+    }
+
+    private void part(long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+    }
+
+    private void part(String value) {
+        part(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+    }
+}
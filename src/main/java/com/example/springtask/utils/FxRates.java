@@ -0,0 +1,61 @@
+package com.example.springtask.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the exchange rate table. A new instance is built for every change and
+ * published in one write, so a reader always converts with one consistent set of rates.
+ */
+public final class FxRates {
+    public static final int NORMALIZED_SCALE = 4;
+
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> rates;
+
+    public FxRates(String baseCurrency, Map<String, BigDecimal> rates) {
+        Map<String, BigDecimal> copy = new HashMap<>(rates);
+        copy.put(baseCurrency, BigDecimal.ONE);
+
+        this.baseCurrency = baseCurrency;
+        this.rates = Collections.unmodifiableMap(copy);
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public BigDecimal getRate(String currency) {
+        return currency == null ? null : rates.get(currency);
+    }
+
+    /**
+     * The amount in the base currency, or {@code null} when there is no rate for the currency.
+     */
+    public BigDecimal normalize(int amount, String currency) {
+        BigDecimal rate = getRate(currency);
+        return rate == null ? null : normalize(amount, rate);
+    }
+
+    public static BigDecimal normalize(int amount, BigDecimal rate) {
+        return rate.multiply(BigDecimal.valueOf(amount)).setScale(NORMALIZED_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public FxRates with(String currency, BigDecimal rate) {
+        Map<String, BigDecimal> copy = new HashMap<>(rates);
+        if (rate == null) {
+            copy.remove(currency);
+        } else {
+            copy.put(currency, rate);
+        }
+
+        return new FxRates(baseCurrency, copy);
+    }
+}
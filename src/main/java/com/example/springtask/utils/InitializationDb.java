@@ -1,67 +1,240 @@
 package com.example.springtask.utils;
 
-import com.example.springtask.domain.store.Category;
-import com.example.springtask.domain.store.Price;
-import com.example.springtask.domain.store.Product;
-import com.example.springtask.repos.CategoryRepository;
-import com.example.springtask.repos.PriceRepository;
-import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CategoryHierarchyService;
+import com.example.springtask.service.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Seeds the catalog on startup with a synthetic data set sized by {@code store.seed.*}. The defaults
+ * give 14 flat categories and 100 products with one BYN price each.
+ * <p>
+ * Rows are written with JDBC batches around the entity layer. Products and their prices are
+ * generated in chunks of {@code batch-size} on a thread pool, and every chunk draws from its own
+ * random generator derived from the seed and the chunk number, so the data does not depend on
+ * scheduling. Categories form a forest in which every category has at most {@code category-fan-out}
+ * children and no chain of super categories is longer than {@code category-depth}. Price {@code j}
+ * belongs to product {@code j % products} in currency {@code j / products}, normalized with the rates
+ * loaded at startup; seeded prices have no history.
+ */
 @Component
 public class InitializationDb implements CommandLineRunner {
-    private final CategoryRepository categoryRepository;
-    private final PriceRepository priceRepository;
-    private final ProductRepository productRepository;
-
-    public InitializationDb(CategoryRepository categoryRepository, PriceRepository priceRepository, ProductRepository productRepository) {
-        this.categoryRepository = categoryRepository;
-        this.priceRepository = priceRepository;
-        this.productRepository = productRepository;
+    private static final Logger LOGGER = LoggerFactory.getLogger(InitializationDb.class);
+
+    private static final String INSERT_CATEGORY =
+            "INSERT INTO categories (id, name, version, last_modified) VALUES (?, ?, 0, ?)";
+    private static final String INSERT_SUPER_CATEGORY =
+            "INSERT INTO categories_super_categories (category_id, super_category_id) VALUES (?, ?)";
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (id, name, category_id, version, last_modified) VALUES (?, ?, ?, 0, ?)";
+    private static final String INSERT_PRICE = "INSERT INTO prices " +
+            "(id, product_id, conventional_unit, currency, normalized_amount, version, last_modified) " +
+            "VALUES (?, ?, ?, ?, ?, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryHierarchyService categoryHierarchyService;
+    private final ExchangeRateService exchangeRateService;
+    private final boolean enabled;
+    private final int categories;
+    private final int categoryDepth;
+    private final int categoryFanOut;
+    private final int products;
+    private final int prices;
+    private final String[] currencies;
+    private final long seed;
+    private final int threads;
+    private final int batchSize;
+
+    public InitializationDb(JdbcTemplate jdbcTemplate,
+                            CategoryHierarchyService categoryHierarchyService,
+                            ExchangeRateService exchangeRateService,
+                            @Value("${store.seed.enabled}") boolean enabled,
+                            @Value("${store.seed.categories}") int categories,
+                            @Value("${store.seed.category-depth}") int categoryDepth,
+                            @Value("${store.seed.category-fan-out}") int categoryFanOut,
+                            @Value("${store.seed.products}") int products,
+                            @Value("${store.seed.prices}") int prices,
+                            @Value("${store.seed.currencies}") String[] currencies,
+                            @Value("${store.seed.random-seed}") long seed,
+                            @Value("${store.seed.threads}") int threads,
+                            @Value("${store.seed.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryHierarchyService = categoryHierarchyService;
+        this.exchangeRateService = exchangeRateService;
+        this.enabled = enabled;
+        this.categories = categories;
+        this.categoryDepth = categoryDepth;
+        this.categoryFanOut = categoryFanOut;
+        this.products = products;
+        this.prices = prices;
+        this.currencies = currencies;
+        this.seed = seed;
+        this.threads = threads;
+        this.batchSize = batchSize;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        for (int i = 0; i < Constants.CATEGORIES.length; i++) {
-            initializationCategories(Constants.CATEGORIES[i]);
+        if (!enabled || catalogExists()) {
+            return;
+        }
+        if (products > 0 && categories == 0) {
+            throw new IllegalStateException("store.seed.products needs at least one category");
         }
+        if ((long) prices > (long) products * currencies.length) {
+            throw new IllegalStateException("store.seed.prices cannot exceed products times currencies");
+        }
+
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.from(Instant.now());
 
-        List<Category> categoryList = categoryRepository.findAll();
+        long[] categoryIds = initializationCategories(now);
+        categoryHierarchyService.rebuildAll();
+        initializationProducts(categoryIds, exchangeRateService.getRates(), now);
+
+        LOGGER.info("SEEDED {} CATEGORIES, {} PRODUCTS AND {} PRICES IN {} MS", categories, products, prices,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-        for (int i = 0; i < 100; i++) {
-            initializationProducts(categoryList.get(randomNumber(categoryList.size())), "product №" + i);
+    /**
+     * A persistent database is seeded once; later starts reuse its catalog.
+     */
+    private boolean catalogExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM categories)", Boolean.class));
+    }
+
+    private long[] initializationCategories(Timestamp now) {
+        long[] ids = nextIds("hibernate_sequence", categories);
+        int roots = rootCount();
+
+        List<Object[]> categoryRows = new ArrayList<>(Math.min(categories, batchSize));
+        List<Object[]> links = new ArrayList<>(Math.min(categories, batchSize));
+        for (int i = 0; i < categories; i++) {
+            categoryRows.add(new Object[]{ids[i], categoryName(i), now});
+            if (i >= roots) {
+                links.add(new Object[]{ids[i], ids[(i - roots) / categoryFanOut]});
+            }
+            if (categoryRows.size() == batchSize || i == categories - 1) {
+                jdbcTemplate.batchUpdate(INSERT_CATEGORY, categoryRows);
+                categoryRows.clear();
+            }
         }
 
-        List<Product> productList = productRepository.findAll();
+        for (int from = 0; from < links.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SUPER_CATEGORY, links.subList(from, Math.min(links.size(), from + batchSize)));
+        }
 
-        for (Product product : productList) {
-            initializationPrices(product, randomNumber(1000), "BYN");
+        return ids;
+    }
+
+    /**
+     * Categories are laid out breadth first, so the children of category {@code k} follow the roots
+     * at {@code roots + k * fanOut}. Enough roots are taken for the whole set to fit in the depth.
+     */
+    private int rootCount() {
+        if (categories == 0 || categoryDepth <= 0 || categoryFanOut <= 0) {
+            return categories;
         }
+
+        long treeSize = 0;
+        long levelSize = 1;
+        for (int level = 0; level <= categoryDepth && treeSize < categories; level++) {
+            treeSize += levelSize;
+            levelSize *= categoryFanOut;
+        }
+
+        return (int) Math.max(1, (categories + treeSize - 1) / treeSize);
     }
 
-    private void initializationProducts(Category category, String name) {
-        Product product = new Product(name);
-        product.setCategory(category);
-        productRepository.save(product);
+    private void initializationProducts(long[] categoryIds, FxRates rates, Timestamp now) throws Exception {
+        int chunks = (products + batchSize - 1) / batchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "seed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int from = chunk * batchSize;
+                int to = Math.min(products, from + batchSize);
+                Random random = new Random(seed ^ (chunk * 0x9E3779B97F4A7C15L));
+                futures.add(executor.submit(() -> initializationChunk(categoryIds, from, to, random, rates, now)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private void initializationPrices(Product product, int conventionalUnit, String currency) {
-        Price price = new Price(conventionalUnit, currency);
-        price.setProduct(product);
-        priceRepository.save(price);
+    private void initializationChunk(long[] categoryIds, int from, int to, Random random, FxRates rates,
+                                     Timestamp now) {
+        long[] productIds = nextIds("hibernate_sequence", to - from);
+
+        List<Object[]> productRows = new ArrayList<>(to - from);
+        List<Object[]> priceRows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long productId = productIds[i - from];
+            productRows.add(new Object[]{productId, "product №" + i,
+                    categoryIds[random.nextInt(categoryIds.length)], now});
+
+            for (int currency = 0; currency < currencies.length && (long) currency * products + i < prices; currency++) {
+                int conventionalUnit = random.nextInt(1000);
+                priceRows.add(new Object[]{null, productId, conventionalUnit, currencies[currency],
+                        rates.normalize(conventionalUnit, currencies[currency]), now});
+            }
+        }
+
+        long[] priceIds = nextIds("prices_seq", priceRows.size());
+        for (int i = 0; i < priceIds.length; i++) {
+            priceRows.get(i)[0] = priceIds[i];
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, productRows);
+        jdbcTemplate.batchUpdate(INSERT_PRICE, priceRows);
     }
 
-    private void initializationCategories(String name) {
-        Category category = new Category(name);
-        categoryRepository.save(category);
+    private String categoryName(int index) {
+        return index < Constants.CATEGORIES.length ? Constants.CATEGORIES[index] : "category №" + index;
     }
 
-    private int randomNumber(int finishNumber) {
-        int startNumber = 0;
+    /**
+     * Ids come from the sequences Hibernate uses, so later inserts through the repositories never
+     * collide with the seeded rows.
+     */
+    private long[] nextIds(String sequence, int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)", Long.class, count);
+
+        long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
 
-        return (startNumber + (int) (Math.random() * finishNumber));
+        return result;
     }
 }
@@ -0,0 +1,402 @@
+package com.example.springtask.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Case-insensitive prefix index over (id, name) pairs that matches the start of any word in a name.
+ * <p>
+ * The bulk of the data lives in an immutable {@link Snapshot}: all names in one {@code char[]} and
+ * one packed {@code long} per word start, sorted by the text from that word to the end of the name.
+ * A lookup is a binary search plus a forward scan. Writes go to a small concurrent delta and a set
+ * of hidden snapshot ids, which are folded into a new snapshot once they grow past a fraction of it.
+ * Reads never lock; writes are serialized. The new snapshot is built on a background thread from a
+ * copy of the delta, and the ids written meanwhile are replayed onto it when it is swapped in, so a
+ * writer only pays for copying the delta.
+ */
+public class NameIndex {
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private volatile State state = new State(new Builder().build());
+    private State compacting;
+    private final Set<Long> writtenDuringCompaction = new LinkedHashSet<>();
+
+    public synchronized void reset(Snapshot snapshot) {
+        state = new State(snapshot);
+        compacting = null;
+    }
+
+    public synchronized void put(long id, String name) {
+        State current = state;
+        current.remove(id);
+        if (name != null) {
+            current.add(id, name);
+        }
+        written(current, id);
+    }
+
+    public synchronized void remove(long id) {
+        State current = state;
+        current.remove(id);
+        written(current, id);
+    }
+
+    public List<Match> search(String prefix, int limit) {
+        String key = normalize(prefix.trim());
+        State current = state;
+
+        List<Match> fromSnapshot = current.base.search(key, limit, current.hidden);
+        List<Match> fromDelta = current.searchDelta(key, limit);
+
+        List<Match> result = new ArrayList<>(Math.min(limit, fromSnapshot.size() + fromDelta.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < fromSnapshot.size() || j < fromDelta.size())) {
+            if (j == fromDelta.size()
+                    || (i < fromSnapshot.size() && fromSnapshot.get(i).key.compareTo(fromDelta.get(j).key) <= 0)) {
+                result.add(fromSnapshot.get(i++));
+            } else {
+                result.add(fromDelta.get(j++));
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        State current = state;
+        return current.base.size() - current.hidden.size() + current.added.size();
+    }
+
+    private void written(State current, long id) {
+        if (compacting == current) {
+            writtenDuringCompaction.add(id);
+            return;
+        }
+
+        int changes = current.added.size() + current.hidden.size();
+        if (changes <= Math.max(MIN_COMPACTION_THRESHOLD, current.base.size() / 8)) {
+            return;
+        }
+
+        Set<Long> hidden = new HashSet<>(current.hidden);
+        Map<Long, String> added = new HashMap<>(current.added);
+        compacting = current;
+        writtenDuringCompaction.clear();
+
+        Thread compaction = new Thread(() -> compact(current, hidden, added), "name-index-compaction");
+        compaction.setDaemon(true);
+        compaction.start();
+    }
+
+    private void compact(State captured, Set<Long> hidden, Map<Long, String> added) {
+        Builder builder = new Builder();
+        Snapshot base = captured.base;
+        for (int i = 0; i < base.size(); i++) {
+            if (!hidden.contains(base.ids[i])) {
+                builder.add(base.ids[i], base.name(i));
+            }
+        }
+        for (Map.Entry<Long, String> entry : added.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        Snapshot snapshot = builder.build();
+
+        synchronized (this) {
+            if (compacting != captured) {
+                return;
+            }
+            compacting = null;
+
+            State next = new State(snapshot);
+            for (Long id : writtenDuringCompaction) {
+                next.remove(id);
+                String name = captured.added.get(id);
+                if (name != null) {
+                    next.add(id, name);
+                }
+            }
+            writtenDuringCompaction.clear();
+            state = next;
+        }
+    }
+
+    private static String normalize(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+
+    private static boolean isWordStart(String name, int position) {
+        return Character.isLetterOrDigit(name.charAt(position))
+                && (position == 0 || !Character.isLetterOrDigit(name.charAt(position - 1)));
+    }
+
+    public static class Match {
+        private final long id;
+        private final String name;
+        private final String key;
+
+        private Match(long id, String name, String key) {
+            this.id = id;
+            this.name = name;
+            this.key = key;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Immutable sorted part of the index. Per name it keeps the characters, an offset and an id,
+     * plus one long per word.
+     */
+    public static class Snapshot {
+        private final long[] ids;
+        private final long[] sortedIds;
+        private final int[] offsets;
+        private final char[] chars;
+        private final long[] entries;
+
+        private Snapshot(long[] ids, int[] offsets, char[] chars, long[] entries) {
+            this.ids = ids;
+            this.sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+            this.offsets = offsets;
+            this.chars = chars;
+            this.entries = entries;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(sortedIds, id) >= 0;
+        }
+
+        private String name(int index) {
+            return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+        }
+
+        private List<Match> search(String key, int limit, Set<Long> hidden) {
+            List<Match> matches = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+
+            for (int i = lowerBound(key); i < entries.length && matches.size() < limit; i++) {
+                long entry = entries[i];
+                if (!startsWith(entry, key)) {
+                    break;
+                }
+
+                long id = ids[nameIndex(entry)];
+                if (!hidden.contains(id) && seen.add(id)) {
+                    int end = offsets[nameIndex(entry) + 1];
+                    matches.add(new Match(id, name(nameIndex(entry)),
+                            normalize(new String(chars, start(entry), end - start(entry)))));
+                }
+            }
+
+            return matches;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(entries[middle], key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private int compare(long entry, String key) {
+            int position = start(entry);
+            int end = offsets[nameIndex(entry) + 1];
+            for (int i = 0; i < key.length(); i++, position++) {
+                if (position == end) {
+                    return -1;
+                }
+                int difference = Character.toLowerCase(chars[position]) - key.charAt(i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+
+            return 0;
+        }
+
+        private boolean startsWith(long entry, String key) {
+            return compare(entry, key) == 0;
+        }
+    }
+
+    /**
+     * Appends names into growing primitive arrays and sorts the word entries once in {@link #build()}.
+     */
+    public static class Builder {
+        private long[] ids = new long[16];
+        private int[] offsets = new int[17];
+        private char[] chars = new char[256];
+        private long[] entries = new long[32];
+        private int size;
+        private int length;
+        private int entryCount;
+
+        public Builder add(long id, String name) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2 + 1);
+            }
+            if (length + name.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + name.length()));
+            }
+
+            for (int i = 0; i < name.length(); i++) {
+                if (isWordStart(name, i)) {
+                    if (entryCount == entries.length) {
+                        entries = Arrays.copyOf(entries, entryCount * 2);
+                    }
+                    entries[entryCount++] = ((long) size << 32) | (length + i);
+                }
+            }
+
+            name.getChars(0, name.length(), chars, length);
+            length += name.length();
+            ids[size++] = id;
+            offsets[size] = length;
+
+            return this;
+        }
+
+        public Snapshot build() {
+            Snapshot snapshot = new Snapshot(
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(offsets, size + 1),
+                    Arrays.copyOf(chars, length),
+                    Arrays.copyOf(entries, entryCount));
+            sort(snapshot);
+
+            return snapshot;
+        }
+
+        private static void sort(Snapshot snapshot) {
+            long[] entries = snapshot.entries;
+            long[] buffer = new long[entries.length];
+
+            for (int width = 1; width < entries.length; width *= 2) {
+                for (int low = 0; low < entries.length - width; low += 2 * width) {
+                    int middle = low + width;
+                    int high = Math.min(low + 2 * width, entries.length);
+
+                    int i = low;
+                    int j = middle;
+                    int k = low;
+                    while (i < middle && j < high) {
+                        buffer[k++] = compareEntries(snapshot, entries[j], entries[i]) < 0 ? entries[j++] : entries[i++];
+                    }
+                    while (i < middle) {
+                        buffer[k++] = entries[i++];
+                    }
+                    while (j < high) {
+                        buffer[k++] = entries[j++];
+                    }
+                    System.arraycopy(buffer, low, entries, low, high - low);
+                }
+            }
+        }
+
+        private static int compareEntries(Snapshot snapshot, long a, long b) {
+            int i = start(a);
+            int j = start(b);
+            int aEnd = snapshot.offsets[nameIndex(a) + 1];
+            int bEnd = snapshot.offsets[nameIndex(b) + 1];
+
+            while (i < aEnd && j < bEnd) {
+                int difference = Character.toLowerCase(snapshot.chars[i++]) - Character.toLowerCase(snapshot.chars[j++]);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+
+            return (aEnd - i) - (bEnd - j);
+        }
+    }
+
+    private static int nameIndex(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int start(long entry) {
+        return (int) entry;
+    }
+
+    private static class State {
+        private final Snapshot base;
+        private final Set<Long> hidden = ConcurrentHashMap.newKeySet();
+        private final Map<Long, String> added = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Match> addedEntries = new ConcurrentSkipListSet<>(
+                Comparator.comparing((Match match) -> match.key).thenComparingLong(match -> match.id));
+
+        private State(Snapshot base) {
+            this.base = base;
+        }
+
+        private void add(long id, String name) {
+            added.put(id, name);
+            for (int i = 0; i < name.length(); i++) {
+                if (isWordStart(name, i)) {
+                    addedEntries.add(new Match(id, name, normalize(name.substring(i))));
+                }
+            }
+        }
+
+        /**
+         * Only ids of the snapshot are hidden, so the hidden set stays a subset of it and
+         * {@link #size()} and the compaction threshold are not inflated by new ids.
+         */
+        private void remove(long id) {
+            if (base.contains(id)) {
+                hidden.add(id);
+            }
+            String name = added.remove(id);
+            if (name != null) {
+                for (int i = 0; i < name.length(); i++) {
+                    if (isWordStart(name, i)) {
+                        addedEntries.remove(new Match(id, name, normalize(name.substring(i))));
+                    }
+                }
+            }
+        }
+
+        private List<Match> searchDelta(String key, int limit) {
+            List<Match> matches = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+
+            for (Match match : addedEntries.tailSet(new Match(Long.MIN_VALUE, null, key))) {
+                if (matches.size() == limit || !match.key.startsWith(key)) {
+                    break;
+                }
+                if (seen.add(match.id)) {
+                    matches.add(match);
+                }
+            }
+
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springtask.utils;
+
+import java.util.Optional;
+
+public class Paging {
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private Paging() {
+    }
+
+    public static int pageSize(Optional<Integer> size) {
+        return Math.max(1, Math.min(size.orElse(DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,91 @@
+CREATE SEQUENCE hibernate_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE prices_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE usrs (
+    id BIGINT NOT NULL,
+    active BOOLEAN NOT NULL,
+    password VARCHAR(255),
+    username VARCHAR(255),
+    CONSTRAINT pk_usrs PRIMARY KEY (id)
+);
+
+CREATE TABLE users_roles (
+    user_id BIGINT NOT NULL,
+    roles VARCHAR(255),
+    CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES usrs (id)
+);
+
+CREATE TABLE categories (
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP,
+    CONSTRAINT pk_categories PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_categories_name ON categories (name);
+
+CREATE TABLE categories_super_categories (
+    category_id BIGINT NOT NULL,
+    super_category_id BIGINT NOT NULL,
+    CONSTRAINT pk_categories_super_categories PRIMARY KEY (category_id, super_category_id),
+    CONSTRAINT fk_categories_super_categories_category FOREIGN KEY (category_id) REFERENCES categories (id),
+    CONSTRAINT fk_categories_super_categories_super FOREIGN KEY (super_category_id) REFERENCES categories (id)
+);
+
+CREATE INDEX idx_categories_super_categories_super ON categories_super_categories (super_category_id);
+
+CREATE TABLE category_closure (
+    ancestor_id BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth INTEGER NOT NULL,
+    CONSTRAINT pk_category_closure PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_category_closure_descendant ON category_closure (descendant_id, depth);
+
+CREATE TABLE products (
+    id BIGINT NOT NULL,
+    name VARCHAR(255),
+    category_id BIGINT,
+    version BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP,
+    CONSTRAINT pk_products PRIMARY KEY (id),
+    CONSTRAINT fk_products_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE INDEX idx_products_name_category ON products (name, category_id);
+CREATE INDEX idx_products_category ON products (category_id, id);
+
+CREATE TABLE prices (
+    id BIGINT NOT NULL,
+    product_id BIGINT,
+    conventional_unit INTEGER NOT NULL,
+    currency VARCHAR(255),
+    normalized_amount DECIMAL(19, 4),
+    version BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP,
+    CONSTRAINT pk_prices PRIMARY KEY (id),
+    CONSTRAINT uk_prices_product_currency UNIQUE (product_id, currency),
+    CONSTRAINT fk_prices_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE INDEX idx_prices_conventional_unit ON prices (conventional_unit, id);
+CREATE INDEX idx_prices_currency ON prices (currency, conventional_unit);
+CREATE INDEX idx_prices_normalized_amount ON prices (normalized_amount, id);
+
+CREATE TABLE price_history (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    price_id BIGINT NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    conventional_unit INTEGER NOT NULL,
+    CONSTRAINT pk_price_history PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_price_history_price_time ON price_history (price_id, changed_at, conventional_unit);
+
+CREATE TABLE exchange_rates (
+    currency VARCHAR(255) NOT NULL,
+    rate DECIMAL(19, 6) NOT NULL,
+    CONSTRAINT pk_exchange_rates PRIMARY KEY (currency)
+);
@@ -0,0 +1,43 @@
+package com.example.springtask;
+
+import com.example.springtask.utils.InitializationDb;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:persistent;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("persistent")
+class PersistentProfileTests {
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InitializationDb initializationDb;
+
+    @Test
+    void givenMigratedSchema_whenStartupRunnersRunAgain_thenNothingIsReseeded() throws Exception {
+        assertThat(count("products"), is(100));
+        assertThat(count("usrs"), is(2));
+
+        initializationDb.run();
+        context.getBean("createAdmin", CommandLineRunner.class).run();
+        context.getBean("createUser", CommandLineRunner.class).run();
+
+        assertThat(count("products"), is(100));
+        assertThat(count("usrs"), is(2));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.springtask.controller;
+
+import com.example.springtask.domain.store.Category;
+import com.example.springtask.domain.store.Price;
+import com.example.springtask.domain.store.Product;
+import com.example.springtask.repos.CategoryRepository;
+import com.example.springtask.repos.PriceRepository;
+import com.example.springtask.repos.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Objects;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CatalogControllerIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @BeforeEach
+    public void resetDb() {
+        priceRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void whenExportCatalogAsNdjson_thenStatus200() {
+        createTestPrice();
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("admin", "admin")
+                .getForEntity("/catalog/export", String.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(Objects.requireNonNull(response.getBody()), containsString("\"name\":\"Jacket\""));
+        assertThat(response.getBody(), containsString("\"currency\":\"BYN\""));
+    }
+
+    @Test
+    void whenExportCatalogAsCsv_thenStatus200() {
+        createTestPrice();
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("admin", "admin")
+                .getForEntity("/catalog/export?format=csv", String.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(Objects.requireNonNull(response.getBody()), containsString(",Jacket,"));
+        assertThat(response.getBody(), containsString(",100,BYN"));
+    }
+
+    @Test
+    void whenUserExportsCatalog_thenStatus403() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("user", "user")
+                .getForEntity("/catalog/export", String.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.FORBIDDEN));
+    }
+
+    private void createTestPrice() {
+        Category category = categoryRepository.save(new Category("Jackets"));
+
+        Product product = new Product("Jacket");
+        product.setCategory(category);
+        productRepository.save(product);
+
+        Price price = new Price(100, "BYN");
+        price.setProduct(product);
+        priceRepository.save(price);
+    }
+}
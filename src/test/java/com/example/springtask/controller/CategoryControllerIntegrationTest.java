@@ -1,32 +1,44 @@
 package com.example.springtask.controller;
 
 import com.example.springtask.domain.store.Category;
+import com.example.springtask.domain.store.Product;
 import com.example.springtask.repos.CategoryRepository;
 import com.example.springtask.repos.PriceRepository;
 import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CategoryHierarchyService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 @ExtendWith(SpringExtension.class)
+@AutoConfigureMetrics
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class CategoryControllerIntegrationTest {
+    private static final String CLOSURE =
+            "SELECT ancestor_id, descendant_id, depth FROM category_closure " +
+            "WHERE descendant_id IN (SELECT id FROM categories) ORDER BY ancestor_id, descendant_id";
+
     @Autowired
     private TestRestTemplate restTemplate;
 
@@ -39,6 +51,12 @@ class CategoryControllerIntegrationTest {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private CategoryHierarchyService categoryHierarchyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     public void resetDb() {
         priceRepository.deleteAll();
@@ -91,6 +109,40 @@ class CategoryControllerIntegrationTest {
         assertThat(category[0].getName(), is("Clothing"));
     }
 
+    @Test
+    void whenGetCategoryByIdTwice_thenServedFromCache() {
+        Long id = createTestCategory("Clothing").getId();
+        for (int i = 0; i < 2; i++) {
+            restTemplate
+                    .withBasicAuth("user", "user")
+                    .getForObject("/category/{id}", Category[].class, id);
+        }
+
+        Map<?, ?> stats = restTemplate
+                .withBasicAuth("admin", "admin")
+                .getForObject("/cache/stats", Map.class);
+
+        assertThat(((Number) ((Map<?, ?>) stats.get("categories")).get("hits")).longValue() > 0, is(true));
+        assertThat(((Number) ((Map<?, ?>) stats.get("users")).get("hits")).longValue() > 0, is(true));
+    }
+
+    @Test
+    void whenGetCategoryById_thenMetricsScrapeable() {
+        Long id = createTestCategory("Clothing").getId();
+        restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category/{id}", Category[].class, id);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("admin", "admin")
+                .getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(Objects.requireNonNull(response.getBody()), containsString("http_server_requests_seconds_bucket"));
+        assertThat(response.getBody(), containsString("store_sql_statements_count"));
+        assertThat(response.getBody(), containsString("hibernate_statements"));
+    }
+
     @Test
     void whenGetCategoryByValue_thenStatus200() {
         String value = createTestCategory("Outwear").getName();
@@ -101,6 +153,56 @@ class CategoryControllerIntegrationTest {
         assertThat(category[0].getName(), is("Outwear"));
     }
 
+    @Test
+    void givenCategoryTree_whenGetDescendants_thenStatus200() {
+        Long superCategoryId = createCategoryTree("Outwear", "Jackets").getId();
+
+        Category[] categories = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category/{id}/descendants", Category[].class, superCategoryId);
+
+        assertThat(categories.length, is(1));
+        assertThat(categories[0].getName(), is("Jackets"));
+    }
+
+    @Test
+    void givenCategoryTree_whenGetDeepProducts_thenStatus200() {
+        Long superCategoryId = createCategoryTree("Outwear", "Jackets").getId();
+
+        Product product = new Product("Jacket");
+        product.setCategory(categoryRepository.findFirstByName("Jackets").orElseThrow(IllegalStateException::new));
+        productRepository.save(product);
+
+        Product[] products = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category/{id}/products?deep=true", Product[].class, superCategoryId);
+
+        assertThat(products.length, is(1));
+        assertThat(products[0].getName(), is("Jacket"));
+    }
+
+    @Test
+    void whenGetCategoriesAfterCursor_thenNextCursorUntilLastPage() {
+        createTestCategory("Jackets");
+        createTestCategory("Jeans");
+        createTestCategory("Shirts");
+
+        Map<?, ?> firstPage = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category?after=&limit=2&sortBy=name", Map.class);
+
+        assertThat(((List<?>) firstPage.get("content")).size(), is(2));
+        assertThat(firstPage.get("next"), notNullValue());
+
+        Map<?, ?> lastPage = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category?after={after}&limit=2&sortBy=name", Map.class, firstPage.get("next"));
+
+        assertThat(((List<?>) lastPage.get("content")).size(), is(1));
+        assertThat(((Map<?, ?>) ((List<?>) lastPage.get("content")).get(0)).get("name"), is("Shirts"));
+        assertThat(lastPage.get("next"), is((Object) null));
+    }
+
     @Test
     void whenUserUpdatesCategory_thenStatus403() {
         Long id = createTestCategory("Jackets").getId();
@@ -143,6 +245,51 @@ class CategoryControllerIntegrationTest {
         assertThat(responseEntity.getBody().getName(), is("Jackets"));
     }
 
+    @Test
+    void givenCategoryTree_whenDeleteMiddleCategories_thenChildrenAndProductsMoveUp() {
+        Long outwearId = createCategoryTree("Outwear", "Jackets").getId();
+        Category leather = new Category("Leather");
+        Set<Category> superCategories = new HashSet<>();
+        superCategories.add(new Category("Jackets"));
+        leather.setSuperCategories(superCategories);
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/category", leather, Category.class);
+
+        Category biker = new Category("Biker");
+        biker.addSuperCategory(categoryRepository.findFirstByName("Leather").orElseThrow(IllegalStateException::new));
+        categoryHierarchyService.rebuild(categoryRepository.save(biker).getId());
+
+        Category jackets = categoryRepository.findFirstByName("Jackets").orElseThrow(IllegalStateException::new);
+        Product product = new Product("Jacket");
+        product.setCategory(jackets);
+        productRepository.save(product);
+
+        ResponseEntity<Map> responseEntity = restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/category?ids={id}", HttpMethod.DELETE, null, Map.class, jackets.getId());
+
+        assertThat(responseEntity.getStatusCode(), is(HttpStatus.OK));
+        assertThat(Objects.requireNonNull(responseEntity.getBody()).get("categoriesDeleted"), is((Object) 1));
+        assertThat(responseEntity.getBody().get("productsReassigned"), is((Object) 1));
+
+        Category[] descendants = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category/{id}/descendants", Category[].class, outwearId);
+        assertThat(descendants.length, is(2));
+        assertThat(descendants[0].getName(), is("Leather"));
+
+        List<Map<String, Object>> closure = jdbcTemplate.queryForList(CLOSURE);
+        categoryHierarchyService.rebuildAll();
+        assertThat(closure, is(jdbcTemplate.queryForList(CLOSURE)));
+
+        Product[] products = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/category/{id}/products", Product[].class, outwearId);
+        assertThat(products.length, is(1));
+        assertThat(products[0].getName(), is("Jacket"));
+    }
+
     @Test
     void givenCategory_whenUserDeletesCategory_thenStatus403() {
         Long id = createTestCategory("Jackets").getId();
@@ -153,6 +300,25 @@ class CategoryControllerIntegrationTest {
         assertThat(responseEntity.getStatusCode(), is(HttpStatus.FORBIDDEN));
     }
 
+    private Category createCategoryTree(String superCategoryName, String categoryName) {
+        Category superCategory = new Category(superCategoryName);
+        Category createdSuperCategory = restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/category", superCategory, Category.class)
+                .getBody();
+
+        Set<Category> categories = new HashSet<>();
+        categories.add(superCategory);
+
+        Category category = new Category(categoryName);
+        category.setSuperCategories(categories);
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/category", category, Category.class);
+
+        return Objects.requireNonNull(createdSuperCategory);
+    }
+
     private Category createTestCategory(String name) {
         Category category = new Category(name);
         return categoryRepository.save(category);
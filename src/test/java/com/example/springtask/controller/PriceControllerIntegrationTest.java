@@ -3,24 +3,53 @@ package com.example.springtask.controller;
 import com.example.springtask.domain.store.Category;
 import com.example.springtask.domain.store.Price;
 import com.example.springtask.domain.store.Product;
+import com.example.springtask.dto.PriceChangeEvent;
 import com.example.springtask.repos.CategoryRepository;
 import com.example.springtask.repos.PriceRepository;
 import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CategoryHierarchyService;
+import com.example.springtask.service.PriceHistoryService;
+import com.example.springtask.service.PriceStreamService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -41,6 +70,21 @@ class PriceControllerIntegrationTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryHierarchyService categoryHierarchyService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private PriceStreamService priceStreamService;
+
+    @Value("${store.stream.dispatch-threads}")
+    private int dispatchThreads;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     public void resetDb() {
         priceRepository.deleteAll();
@@ -90,6 +134,238 @@ class PriceControllerIntegrationTest {
                 .getName(), is("Outwear"));
     }
 
+    @Test
+    void givenConcurrentWriters_whenCreateSamePrice_thenSingleRowUpserted() throws Exception {
+        Product product = getTestPrice().getProduct();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<ResponseEntity<Price>>> responses = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            Price price = new Price(200 + i, "USD");
+            price.setProduct(new Product(product.getName()));
+            responses.add(executor.submit(() -> restTemplate
+                    .withBasicAuth("admin", "admin")
+                    .postForEntity("/price", price, Price.class)));
+        }
+
+        for (Future<ResponseEntity<Price>> response : responses) {
+            assertThat(response.get().getStatusCode(), is(HttpStatus.CREATED));
+        }
+        executor.shutdown();
+
+        assertThat(priceRepository.count(), is(2L));
+        assertThat(priceRepository.findFirstByProductIdAndCurrency(product.getId(), "USD").isPresent(), is(true));
+    }
+
+    @Test
+    void givenStreamSubscriber_whenCreatePrice_thenChangeStreamed() throws Exception {
+        Product product = getTestPrice().getProduct();
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(restTemplate.getRootUri() + "/price/stream")
+                .openConnection();
+        connection.setRequestProperty("Authorization", "Basic "
+                + Base64.getEncoder().encodeToString("user:user".getBytes(StandardCharsets.UTF_8)));
+        connection.setRequestProperty("Accept", MediaType.TEXT_EVENT_STREAM_VALUE);
+        connection.setReadTimeout(10000);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            assertThat(reader.readLine(), is(":subscribed"));
+
+            Price price = new Price(300, "USD");
+            price.setProduct(new Product(product.getName()));
+            restTemplate
+                    .withBasicAuth("admin", "admin")
+                    .postForEntity("/price", price, Price.class);
+
+            String line = reader.readLine();
+            while (!line.startsWith("data:")) {
+                line = reader.readLine();
+            }
+
+            Map<?, ?> event = new ObjectMapper().readValue(line.substring("data:".length()), Map.class);
+            assertThat(event.get("type"), is("SAVED"));
+            assertThat(event.get("currency"), is("USD"));
+            assertThat(event.get("conventionalUnit"), is(300));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    void givenNonReadingSubscribers_whenPricesChange_thenOthersStreamedAndStalledDropped() throws Exception {
+        int baseline = priceStreamService.getSubscriberCount();
+        URL root = new URL(restTemplate.getRootUri());
+        String authorization = "Basic "
+                + Base64.getEncoder().encodeToString("user:user".getBytes(StandardCharsets.UTF_8));
+
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            for (int i = 0; i < dispatchThreads; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(1024);
+                socket.connect(new InetSocketAddress(root.getHost(), root.getPort()));
+                socket.getOutputStream().write(("GET /price/stream HTTP/1.1\r\nHost: " + root.getHost()
+                        + "\r\nAuthorization: " + authorization
+                        + "\r\nAccept: " + MediaType.TEXT_EVENT_STREAM_VALUE + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                stalled.add(socket);
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (priceStreamService.getSubscriberCount() < baseline + dispatchThreads
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            long floodUntil = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < floodUntil) {
+                publishChanges(1000);
+            }
+
+            HttpURLConnection connection = (HttpURLConnection) new URL(root, "/price/stream").openConnection();
+            connection.setRequestProperty("Authorization", authorization);
+            connection.setRequestProperty("Accept", MediaType.TEXT_EVENT_STREAM_VALUE);
+            connection.setReadTimeout(3000);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                assertThat(reader.readLine(), is(":subscribed"));
+
+                priceStreamService.publish(new PriceChangeEvent(PriceChangeEvent.Type.SAVED, -1L, null, 1, "EUR", null));
+
+                String line = reader.readLine();
+                while (!line.startsWith("data:")) {
+                    line = reader.readLine();
+                }
+                assertThat(line.contains("\"priceId\":"), is(true));
+            } finally {
+                connection.disconnect();
+            }
+
+            deadline = System.currentTimeMillis() + 30000;
+            while (priceStreamService.getSubscriberCount() > baseline && System.currentTimeMillis() < deadline) {
+                publishChanges(100);
+                Thread.sleep(100);
+            }
+            assertThat(priceStreamService.getSubscriberCount(), is(baseline));
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    void givenPriceChanges_whenGetHistory_thenMinMaxLastPerBucket() {
+        Price testPrice = getTestPrice();
+        for (int conventionalUnit : new int[]{80, 120}) {
+            Price price = new Price(conventionalUnit, "BYN");
+            restTemplate
+                    .withBasicAuth("admin", "admin")
+                    .exchange("/price/{id}", HttpMethod.PUT, new HttpEntity<>(price), Price.class, testPrice.getId());
+        }
+        priceHistoryService.record(testPrice.getId(), 120);
+
+        Map<?, ?>[] buckets = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/price/{id}/history?bucket=day", Map[].class, testPrice.getId());
+
+        assertThat(buckets.length, is(1));
+        assertThat(buckets[0].get("min"), is(80));
+        assertThat(buckets[0].get("max"), is(120));
+        assertThat(buckets[0].get("last"), is(120));
+        assertThat(buckets[0].get("count"), is(3));
+    }
+
+    @Test
+    void whenImportPriceBatch_thenPricesUpserted() {
+        getTestPrice();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("text/csv"));
+        String body = "product,conventionalUnit,currency\n" +
+                "Jacket,150,BYN\n" +
+                "Jacket,30,EUR\n" +
+                "Coat,10,BYN\n";
+
+        ResponseEntity<Map> response = restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/price/batch", new HttpEntity<>(body, headers), Map.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(((Number) Objects.requireNonNull(response.getBody()).get("created")).intValue(), is(1));
+        assertThat(((Number) response.getBody().get("updated")).intValue(), is(1));
+        assertThat(((Number) response.getBody().get("failed")).intValue(), is(1));
+        assertThat(priceRepository.count(), is(2L));
+    }
+
+    @Test
+    void givenHeaderlessCsv_whenImportPriceBatch_thenFirstRowImported() {
+        Category category = categoryRepository.save(new Category("Jackets"));
+        for (String name : new String[]{"product №1", "product №2"}) {
+            Product product = new Product(name);
+            product.setCategory(category);
+            productRepository.save(product);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("text/csv"));
+        String body = "product №1,100,BYN\n" +
+                "product №2,200,BYN\n";
+
+        ResponseEntity<Map> response = restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/price/batch", new HttpEntity<>(body, headers), Map.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(((Number) Objects.requireNonNull(response.getBody()).get("created")).intValue(), is(2));
+        assertThat(priceRepository.count(), is(2L));
+    }
+
+    @Test
+    void givenDeepCategoryChain_whenGetPricePage_thenStatementCountIsConstant() {
+        Category category = null;
+        for (int i = 0; i < 5; i++) {
+            Category child = new Category("Level " + i);
+            if (category != null) {
+                child.addSuperCategory(category);
+            }
+            category = categoryRepository.save(child);
+        }
+        categoryHierarchyService.rebuildAll();
+
+        Product product = new Product("Jacket");
+        product.setCategory(category);
+        productRepository.save(product);
+        for (int i = 0; i < 10; i++) {
+            Price price = new Price(100 + i, "C" + i);
+            price.setProduct(product);
+            priceRepository.save(price);
+        }
+
+        restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/price/{value}", Price[].class, "currency-C0");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<?, ?> page = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/price?size=10", Map.class);
+
+        assertThat(((List<?>) page.get("content")).size(), is(10));
+        assertThat(statistics.getPrepareStatementCount() <= 4, is(true));
+
+        Map<?, ?> level = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) ((List<?>) page.get("content")).get(0))
+                .get("product")).get("category");
+        int depth = 0;
+        while (!((List<?>) level.get("superCategories")).isEmpty()) {
+            level = (Map<?, ?>) ((List<?>) level.get("superCategories")).get(0);
+            depth++;
+        }
+        assertThat(depth, is(4));
+    }
+
     @Test
     void whenGetPriceByCurrency_thenStatus200() {
         String currency = getTestPrice().getCurrency();
@@ -148,7 +424,7 @@ class PriceControllerIntegrationTest {
         assertThat(responseEntity.getStatusCode(), is(HttpStatus.OK));
         assertThat(Objects.requireNonNull(responseEntity.getBody()).getId(), notNullValue());
         assertThat(responseEntity.getBody().getConventionalUnit(), is(200));
-        assertThat(responseEntity.getBody().getCurrency(), is("EUR"));
+        assertThat(responseEntity.getBody().getCurrency(), is("BYN"));
     }
 
     @Test
@@ -167,6 +443,77 @@ class PriceControllerIntegrationTest {
         assertThat(responseEntity.getBody().getProduct().getName(), is("Jacket"));
     }
 
+    @Test
+    void givenExchangeRate_whenGetPriceByNormalizedRange_thenComparedAcrossCurrencies() {
+        Category category = new Category("Jackets");
+        createTestPrice(category, "Jacket", 50, "BYN");
+        createTestPrice(category, "Coat", 20, "USD");
+        createTestPrice(category, "Vest", 10, "USD");
+
+        Map<String, Object> rate = new HashMap<>();
+        rate.put("rate", 3);
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/fx/USD", HttpMethod.PUT, new HttpEntity<>(rate), Map.class);
+
+        Map<?, ?>[] prices = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/price/{value}", Map[].class, "normalized_range-40-70");
+
+        assertThat(prices.length, is(2));
+        assertThat(((Map<?, ?>) prices[0].get("product")).get("name"), is("Jacket"));
+        assertThat(((Map<?, ?>) prices[1].get("product")).get("name"), is("Coat"));
+        assertThat(((Number) prices[1].get("normalizedAmount")).intValue(), is(60));
+
+        rate.put("rate", 1.5);
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/fx/USD", HttpMethod.PUT, new HttpEntity<>(rate), Map.class);
+
+        prices = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/price/{value}", Map[].class, "normalized_range-0-40");
+
+        assertThat(prices.length, is(2));
+        assertThat(((Map<?, ?>) prices[0].get("product")).get("name"), is("Vest"));
+        assertThat(((Map<?, ?>) prices[1].get("product")).get("name"), is("Coat"));
+
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/fx/USD", HttpMethod.DELETE, null, Map.class);
+    }
+
+    @Test
+    void givenCborAccept_whenGetPrices_thenBinaryBodyWithSameFields() throws Exception {
+        Price price = getTestPrice();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_CBOR));
+        ResponseEntity<byte[]> cbor = restTemplate
+                .withBasicAuth("user", "user")
+                .exchange("/price", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(MediaType.APPLICATION_CBOR.isCompatibleWith(cbor.getHeaders().getContentType()), is(true));
+        JsonNode content = new CBORMapper().readTree(cbor.getBody()).get("content").get(0);
+        assertThat(content.get("id").asLong(), is(price.getId()));
+        assertThat(content.get("conventionalUnit").asInt(), is(100));
+        assertThat(content.get("product").get("category").get("name").asText(), is("Jackets"));
+
+        ResponseEntity<String> json = restTemplate
+                .withBasicAuth("user", "user")
+                .getForEntity("/price", String.class);
+
+        assertThat(MediaType.APPLICATION_JSON.isCompatibleWith(json.getHeaders().getContentType()), is(true));
+        assertThat(cbor.getBody().length < json.getBody().getBytes(StandardCharsets.UTF_8).length, is(true));
+    }
+
+    private void publishChanges(int count) {
+        for (long id = 0; id < count; id++) {
+            priceStreamService.publish(new PriceChangeEvent(PriceChangeEvent.Type.SAVED, id, id, (int) id, "USD",
+                    null));
+        }
+    }
+
     private Price createTestPrice(Category category, String productName, int conventionalUnit, String currency) {
         categoryRepository.save(category);
 
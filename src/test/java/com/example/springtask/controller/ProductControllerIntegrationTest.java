@@ -1,10 +1,13 @@
 package com.example.springtask.controller;
 
 import com.example.springtask.domain.store.Category;
+import com.example.springtask.domain.store.Price;
 import com.example.springtask.domain.store.Product;
 import com.example.springtask.repos.CategoryRepository;
 import com.example.springtask.repos.PriceRepository;
 import com.example.springtask.repos.ProductRepository;
+import com.example.springtask.service.CategoryHierarchyService;
+import com.example.springtask.service.NameSuggestService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,16 +15,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -40,6 +48,12 @@ class ProductControllerIntegrationTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryHierarchyService categoryHierarchyService;
+
+    @Autowired
+    private NameSuggestService nameSuggestService;
+
     @BeforeEach
     public void resetDb() {
         priceRepository.deleteAll();
@@ -139,6 +153,158 @@ class ProductControllerIntegrationTest {
         assertThat(responseEntity.getBody().getName(), is("Jacket"));
     }
 
+    @Test
+    void whenSearchProducts_thenMatchesAndFacetsReturned() {
+        Category outwear = categoryRepository.save(new Category("Outwear"));
+        Category jackets = new Category("Jackets");
+        jackets.addSuperCategory(outwear);
+        categoryRepository.save(jackets);
+        Category trousers = categoryRepository.save(new Category("Trousers"));
+        categoryHierarchyService.rebuildAll();
+
+        createTestPrice(trousers, "Jeans Slim", 40, "BYN");
+        createTestPrice(trousers, "Jeans Wide", 120, "BYN");
+        createTestPrice(jackets, "Jacket", 45, "BYN");
+        Product jeansJacket = createTestPrice(jackets, "Jeans Jacket", 30, "BYN").getProduct();
+        Price price = new Price(20, "USD");
+        price.setProduct(jeansJacket);
+        priceRepository.save(price);
+
+        Map<?, ?> result = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/product/search?name=Jeans&max=50&currency=BYN", Map.class);
+
+        List<?> content = (List<?>) result.get("content");
+        assertThat(((Number) result.get("total")).intValue(), is(2));
+        assertThat(((Map<?, ?>) content.get(0)).get("name"), is("Jeans Jacket"));
+        assertThat(((List<?>) result.get("categories")).size(), is(2));
+        Map<?, ?> bucket = (Map<?, ?>) ((List<?>) result.get("priceBuckets")).get(0);
+        assertThat(((Number) bucket.get("from")).intValue(), is(0));
+        assertThat(((Number) bucket.get("count")).intValue(), is(2));
+
+        Map<?, ?> subtree = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/product/search?category={id}&deep=true", Map.class, outwear.getId());
+
+        assertThat(((Number) subtree.get("total")).intValue(), is(2));
+        assertThat(((List<?>) subtree.get("content")).size(), is(2));
+        assertThat(((Number) ((Map<?, ?>) ((List<?>) subtree.get("priceBuckets")).get(0)).get("count")).intValue(), is(2));
+
+        Map<String, Object> rate = new HashMap<>();
+        rate.put("rate", 3);
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/fx/USD", HttpMethod.PUT, new HttpEntity<>(rate), Map.class);
+
+        Map<?, ?> normalized = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/product/search?min=50&max=70", Map.class);
+
+        assertThat(((Number) normalized.get("total")).intValue(), is(1));
+        assertThat(((Map<?, ?>) ((List<?>) normalized.get("content")).get(0)).get("name"), is("Jeans Jacket"));
+    }
+
+    @Test
+    void givenCreatedProduct_whenSuggest_thenMatchedByAnyWordUntilDeleted() {
+        categoryRepository.save(new Category("Jackets"));
+        nameSuggestService.rebuild();
+
+        Product product = new Product("Leather Jacket");
+        product.setCategory(new Category("Jackets"));
+        Long id = Objects.requireNonNull(restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/product", product, Product.class)
+                .getBody()).getId();
+
+        Map<?, ?>[] suggestions = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/product/suggest?q=JAC", Map[].class);
+
+        assertThat(suggestions.length, is(1));
+        assertThat(((Number) suggestions[0].get("id")).longValue(), is(id));
+        assertThat(suggestions[0].get("name"), is("Leather Jacket"));
+
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/product/{id}", HttpMethod.DELETE, null, Product.class, id);
+
+        suggestions = restTemplate
+                .withBasicAuth("user", "user")
+                .getForObject("/product/suggest?q=leather", Map[].class);
+
+        assertThat(suggestions.length, is(0));
+    }
+
+    @Test
+    void givenETag_whenGetUnchangedProduct_thenStatus304UntilUpdated() {
+        Product product = getTestProduct();
+
+        ResponseEntity<Product[]> first = restTemplate
+                .withBasicAuth("user", "user")
+                .getForEntity("/product/{id}", Product[].class, product.getId());
+        String eTag = first.getHeaders().getETag();
+
+        assertThat(eTag, notNullValue());
+        assertThat(first.getHeaders().getLastModified() > 0, is(true));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<Product[]> unchanged = restTemplate
+                .withBasicAuth("user", "user")
+                .exchange("/product/{id}", HttpMethod.GET, new HttpEntity<>(headers), Product[].class,
+                        product.getId());
+
+        assertThat(unchanged.getStatusCode(), is(HttpStatus.NOT_MODIFIED));
+
+        Product update = new Product("Vest");
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/product/{id}", HttpMethod.PUT, new HttpEntity<>(update), Product.class, product.getId());
+
+        ResponseEntity<Product[]> changed = restTemplate
+                .withBasicAuth("user", "user")
+                .exchange("/product/{id}", HttpMethod.GET, new HttpEntity<>(headers), Product[].class,
+                        product.getId());
+
+        assertThat(changed.getStatusCode(), is(HttpStatus.OK));
+        assertThat(changed.getHeaders().getETag(), not(eTag));
+        assertThat(Objects.requireNonNull(changed.getBody())[0].getName(), is("Vest"));
+    }
+
+    @Test
+    void givenStaleVersion_whenSaveProduct_thenStatus409() {
+        Product product = getTestProduct();
+
+        restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/product/{id}", HttpMethod.PUT, new HttpEntity<>(new Product("Vest")), Product.class,
+                        product.getId());
+
+        Map<String, Object> category = new HashMap<>();
+        category.put("name", "Jackets");
+        Map<String, Object> stale = new HashMap<>();
+        stale.put("id", product.getId());
+        stale.put("name", "Coat");
+        stale.put("category", category);
+
+        ResponseEntity<String> responseEntity = restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/product", stale, String.class);
+
+        assertThat(responseEntity.getStatusCode(), is(HttpStatus.CONFLICT));
+        assertThat(productRepository.findById(product.getId()).get().getName(), is("Vest"));
+    }
+
+    private Price createTestPrice(Category category, String name, int conventionalUnit, String currency) {
+        Product product = new Product(name);
+        product.setCategory(category);
+        productRepository.save(product);
+
+        Price price = new Price(conventionalUnit, currency);
+        price.setProduct(product);
+        return priceRepository.save(price);
+    }
+
     private Product createTestProduct(Category category, String name) {
         categoryRepository.save(category);
         Product product = new Product(name);
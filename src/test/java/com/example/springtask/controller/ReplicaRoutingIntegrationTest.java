@@ -0,0 +1,128 @@
+package com.example.springtask.controller;
+
+import com.example.springtask.config.CacheConfig;
+import com.example.springtask.config.ReplicaRoutingInterceptor;
+import com.example.springtask.domain.store.Category;
+import com.example.springtask.repos.CategoryRepository;
+import com.example.springtask.repos.PriceRepository;
+import com.example.springtask.repos.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "store.replica.max-lag-ms=60000")
+@ActiveProfiles("replica")
+class ReplicaRoutingIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void resetDb() {
+        priceRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void whenGetCategory_thenReadFromReplicaUnlessClientJustWrote() {
+        Long id = categoryRepository.save(new Category("Jackets")).getId();
+        double replicaRoutes = routes("replica-0");
+
+        ResponseEntity<String> read = restTemplate
+                .withBasicAuth("user", "user")
+                .getForEntity("/category/{id}", String.class, id);
+
+        assertThat(read.getStatusCode(), is(HttpStatus.OK));
+        assertThat(routes("replica-0") > replicaRoutes, is(true));
+
+        ResponseEntity<Category> write = restTemplate
+                .withBasicAuth("admin", "admin")
+                .postForEntity("/category", new Category("Vests"), Category.class);
+        Long createdId = Objects.requireNonNull(write.getBody()).getId();
+        String lastWrite = lastWriteCookie(write);
+
+        assertThat(lastWrite, is(notNullValue()));
+
+        HttpHeaders writer = new HttpHeaders();
+        writer.add(HttpHeaders.COOKIE, lastWrite);
+        replicaRoutes = routes("replica-0");
+
+        ResponseEntity<String> readAfterWrite = restTemplate
+                .withBasicAuth("user", "user")
+                .exchange("/category/{id}", HttpMethod.GET, new HttpEntity<>(writer), String.class, createdId);
+
+        assertThat(readAfterWrite.getStatusCode(), is(HttpStatus.OK));
+        assertThat(routes("replica-0"), is(replicaRoutes));
+
+        cacheManager.getCache(CacheConfig.CATEGORIES).clear();
+        ResponseEntity<String> otherClientRead = restTemplate
+                .withBasicAuth("user", "user")
+                .getForEntity("/category/{id}", String.class, createdId);
+
+        assertThat(otherClientRead.getStatusCode(), is(HttpStatus.OK));
+        assertThat(routes("replica-0") > replicaRoutes, is(true));
+        assertThat(cacheManager.getCache(CacheConfig.CATEGORIES).get(createdId), is(nullValue()));
+    }
+
+    @Test
+    void givenFailedWrite_whenGetCategory_thenNoLastWriteCookie() {
+        ResponseEntity<String> write = restTemplate
+                .withBasicAuth("admin", "admin")
+                .exchange("/category/{id}", HttpMethod.DELETE, null, String.class, Long.MAX_VALUE);
+
+        assertThat(write.getStatusCode().is2xxSuccessful(), is(false));
+        assertThat(lastWriteCookie(write), is(nullValue()));
+    }
+
+    private static String lastWriteCookie(ResponseEntity<?> response) {
+        List<String> cookies = response.getHeaders().getOrDefault(HttpHeaders.SET_COOKIE, Collections.emptyList());
+        for (String cookie : cookies) {
+            if (cookie.startsWith(ReplicaRoutingInterceptor.LAST_WRITE_COOKIE + "=")) {
+                return cookie.split(";")[0];
+            }
+        }
+        return null;
+    }
+
+    private double routes(String target) {
+        return meterRegistry.get("store.datasource.routes").tag("target", target).counter().count();
+    }
+}